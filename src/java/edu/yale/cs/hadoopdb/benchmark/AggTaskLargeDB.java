@@ -17,20 +17,15 @@ package edu.yale.cs.hadoopdb.benchmark;
 
 
 import java.io.IOException;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.Iterator;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.DoubleWritable;
-import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.FileOutputFormat;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
-import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reducer;
 import org.apache.hadoop.mapred.Reporter;
@@ -38,7 +33,8 @@ import org.apache.hadoop.mapred.TextOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
 
 import edu.yale.cs.hadoopdb.connector.DBConst;
-import edu.yale.cs.hadoopdb.connector.DBWritable;
+import edu.yale.cs.hadoopdb.connector.DBColumnBatch;
+import edu.yale.cs.hadoopdb.exec.DBBatchMapper;
 import edu.yale.cs.hadoopdb.exec.DBJobBase;
 import edu.yale.cs.hadoopdb.util.HDFSUtil;
 
@@ -78,7 +74,7 @@ public class AggTaskLargeDB extends DBJobBase {
 		FileOutputFormat.setOutputPath(conf, outputPath);
 
 		conf.set(DBConst.DB_RELATION_ID, "UserVisits");
-		conf.set(DBConst.DB_RECORD_READER, AggUserVisitsRecord.class.getName());
+		conf.setBoolean(DBConst.DB_BATCH, true);
 		conf.set(DBConst.DB_SQL_QUERY,
 				"SELECT sourceIP, SUM(adRevenue) AS sumAdRevenue "
 						+ "FROM UserVisits GROUP BY sourceIP;");
@@ -92,20 +88,23 @@ public class AggTaskLargeDB extends DBJobBase {
 		return -1;
 	}
 
-	static class Map extends MapReduceBase implements
-			Mapper<LongWritable, AggUserVisitsRecord, Text, DoubleWritable> {
+	static class Map extends DBBatchMapper<Text, DoubleWritable> {
 
 		protected Text outputKey = new Text();
 		protected DoubleWritable outputValue = new DoubleWritable();
 
-		public void map(LongWritable key, AggUserVisitsRecord value,
+		@Override
+		protected void mapBatch(DBColumnBatch batch,
 				OutputCollector<Text, DoubleWritable> output, Reporter reporter)
 				throws IOException {
 
-			outputKey.set(value.getSourceIP());
-			outputValue.set(value.getSumAdRevenue());
-			output.collect(outputKey, outputValue);
-
+			String[] sourceIP = batch.getStringColumn(0);
+			double[] sumAdRevenue = batch.getDoubleColumn(1);
+			for (int row = 0; row < batch.size(); row++) {
+				outputKey.set(sourceIP[row]);
+				outputValue.set(sumAdRevenue[row]);
+				output.collect(outputKey, outputValue);
+			}
 		}
 	}
 
@@ -128,28 +127,4 @@ public class AggTaskLargeDB extends DBJobBase {
 		}
 	}
 
-	static class AggUserVisitsRecord implements DBWritable {
-		private String sourceIP;
-		private double sumAdRevenue;
-
-		public String getSourceIP() {
-			return sourceIP;
-		}
-
-		public double getSumAdRevenue() {
-			return sumAdRevenue;
-		}
-
-		@Override
-		public void readFields(ResultSet resultSet) throws SQLException {
-			this.sourceIP = resultSet.getString("sourceIP");
-			this.sumAdRevenue = resultSet.getDouble("sumAdRevenue");
-		}
-
-		@Override
-		public void write(PreparedStatement statement) throws SQLException {
-			throw new UnsupportedOperationException("No write() impl.");
-		}
-	}
-
 }
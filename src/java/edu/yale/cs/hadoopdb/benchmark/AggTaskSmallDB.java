@@ -18,9 +18,6 @@ package edu.yale.cs.hadoopdb.benchmark;
 
 
 import java.io.IOException;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.Iterator;
 
 import org.apache.hadoop.conf.Configuration;
@@ -39,7 +36,8 @@ import org.apache.hadoop.mapred.TextOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
 
 import edu.yale.cs.hadoopdb.connector.DBConst;
-import edu.yale.cs.hadoopdb.connector.DBWritable;
+import edu.yale.cs.hadoopdb.connector.AnnotatedDBWritable;
+import edu.yale.cs.hadoopdb.connector.DBField;
 import edu.yale.cs.hadoopdb.exec.DBJobBase;
 import edu.yale.cs.hadoopdb.util.HDFSUtil;
 
@@ -130,8 +128,10 @@ public class AggTaskSmallDB extends DBJobBase {
 		}
 	}
 
-	static class AggUserVisitsRecord implements DBWritable {
+	static class AggUserVisitsRecord extends AnnotatedDBWritable {
+		@DBField
 		private String subSourceIP;
+		@DBField
 		private double sumAdRevenue;
 
 		public String getSubSourceIP() {
@@ -141,17 +141,6 @@ public class AggTaskSmallDB extends DBJobBase {
 		public double getSumAdRevenue() {
 			return sumAdRevenue;
 		}
-
-		@Override
-		public void readFields(ResultSet resultSet) throws SQLException {
-			this.subSourceIP = resultSet.getString("subSourceIP");
-			this.sumAdRevenue = resultSet.getDouble("sumAdRevenue");
-		}
-
-		@Override
-		public void write(PreparedStatement statement) throws SQLException {
-			throw new UnsupportedOperationException("No write() impl.");
-		}
 	}
 
 }
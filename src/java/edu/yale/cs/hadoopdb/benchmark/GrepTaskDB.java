@@ -17,9 +17,6 @@ package edu.yale.cs.hadoopdb.benchmark;
 
 
 import java.io.IOException;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
@@ -35,7 +32,8 @@ import org.apache.hadoop.mapred.TextOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
 
 import edu.yale.cs.hadoopdb.connector.DBConst;
-import edu.yale.cs.hadoopdb.connector.DBWritable;
+import edu.yale.cs.hadoopdb.connector.AnnotatedDBWritable;
+import edu.yale.cs.hadoopdb.connector.DBField;
 import edu.yale.cs.hadoopdb.exec.DBJobBase;
 import edu.yale.cs.hadoopdb.util.HDFSUtil;
 
@@ -50,8 +48,10 @@ public class GrepTaskDB extends DBJobBase {
 		System.exit(res);
 	}
 
-	static class DocumentsRecord implements DBWritable {
+	static class DocumentsRecord extends AnnotatedDBWritable {
+		@DBField("key1")
 		private String key;
+		@DBField
 		private String field;
 
 		public String getKey() {
@@ -61,17 +61,6 @@ public class GrepTaskDB extends DBJobBase {
 		public String getField() {
 			return field;
 		}
-
-		@Override
-		public void readFields(ResultSet resultSet) throws SQLException {
-			this.key = resultSet.getString("key1");
-			this.field = resultSet.getString("field");
-		}
-
-		@Override
-		public void write(PreparedStatement statement) throws SQLException {
-			throw new UnsupportedOperationException("No write() impl.");		
-		}
 	}
 
 	public static class Map extends MapReduceBase implements Mapper<LongWritable, DocumentsRecord, Text, Text> {
@@ -19,9 +19,6 @@ package edu.yale.cs.hadoopdb.benchmark;
 
 
 import java.io.IOException;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.Iterator;
 
 import org.apache.hadoop.conf.Configuration;
@@ -39,7 +36,8 @@ import org.apache.hadoop.mapred.TextOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
 
 import edu.yale.cs.hadoopdb.connector.DBConst;
-import edu.yale.cs.hadoopdb.connector.DBWritable;
+import edu.yale.cs.hadoopdb.connector.AnnotatedDBWritable;
+import edu.yale.cs.hadoopdb.connector.DBField;
 import edu.yale.cs.hadoopdb.exec.DBJobBase;
 import edu.yale.cs.hadoopdb.util.BenchmarkUtils;
 import edu.yale.cs.hadoopdb.util.HDFSUtil;
@@ -55,10 +53,14 @@ public class JoinTaskDB extends DBJobBase {
 		System.exit(res);
 	}
 
-	static class JoinRecord implements DBWritable {
+	static class JoinRecord extends AnnotatedDBWritable {
+		@DBField
 		private String sourceIP;
+		@DBField
 		private double totalRevenue;
+		@DBField
 		private int sumPageRank;
+		@DBField
 		private int countPageRank;
 
 		public String getSourceIP() {
@@ -76,19 +78,6 @@ public class JoinTaskDB extends DBJobBase {
 		public int getCountPageRank() {
 			return countPageRank;
 		}
-		
-		@Override
-		public void readFields(ResultSet resultSet) throws SQLException {
-			this.sourceIP = resultSet.getString("sourceIP");
-			this.sumPageRank = resultSet.getInt("sumPageRank");
-			this.countPageRank = resultSet.getInt("countPageRank");
-			this.totalRevenue = resultSet.getDouble("totalRevenue");
-		}
-
-		@Override
-		public void write(PreparedStatement statement) throws SQLException {
-			throw new UnsupportedOperationException("Unimplemented method write() called");
-		}
 	}
 
 	public static class Map extends MapReduceBase implements Mapper<LongWritable, JoinRecord, Text, Text> {
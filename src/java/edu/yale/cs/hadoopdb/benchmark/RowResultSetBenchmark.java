@@ -0,0 +1,159 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.yale.cs.hadoopdb.connector.RowResultSet;
+
+/**
+ * Compares the row throughput of the typed getters of
+ * {@link RowResultSet} (used by the prefetching and COPY readers) against
+ * the former dynamic proxy, which dispatched every getter by method name and
+ * converted the decoded value by the method's return type. Rows have the
+ * columns of the UserVisits benchmark relation that record readers decode
+ * (int, string, double, bigint).
+ *
+ * Usage: RowResultSetBenchmark [rows (5000000)] [iterations (5)]
+ */
+public class RowResultSetBenchmark {
+
+	private static final String[] LABELS = { "visitdate", "sourceip",
+			"adrevenue", "duration" };
+
+	public static void main(String[] args) throws Exception {
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		Object[][] data = new Object[1000][];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = new Object[] { i, "158.112.27." + (i % 256),
+					i * 0.25, (long) i * 1000 };
+		}
+
+		for (int i = 0; i < iterations; i++) {
+			long t0 = System.nanoTime();
+			long typed = read(new ArrayResultSet(data, rows));
+			long t1 = System.nanoTime();
+			long proxied = read(createProxy(data, rows));
+			long t2 = System.nanoTime();
+			if (typed != proxied) {
+				throw new IllegalStateException("Checksums differ.");
+			}
+
+			System.out.println("iteration " + i + ": typed getters "
+					+ rowsPerSecond(rows, t1 - t0) + " rows/s | proxy "
+					+ rowsPerSecond(rows, t2 - t1) + " rows/s");
+		}
+	}
+
+	private static long rowsPerSecond(int rows, long nanos) {
+		return Math.round(rows / (nanos / 1e9));
+	}
+
+	/**
+	 * Reads all rows the way a DBWritable's readFields does
+	 */
+	private static long read(ResultSet rs) throws SQLException {
+		long checksum = 0;
+		while (rs.next()) {
+			checksum += rs.getInt(1);
+			checksum += rs.getString(2).length();
+			checksum += (long) rs.getDouble(3);
+			checksum += rs.getLong(4);
+		}
+		rs.close();
+		return checksum;
+	}
+
+	/**
+	 * Returns the given rows over and over
+	 */
+	private static class ArrayResultSet extends RowResultSet {
+		private Object[][] data;
+		private int rows;
+		private int pos = 0;
+
+		public ArrayResultSet(Object[][] data, int rows) {
+			super(LABELS, null, null);
+			this.data = data;
+			this.rows = rows;
+		}
+
+		@Override
+		protected Object[] nextRow() {
+			return pos < rows ? data[pos++ % data.length] : null;
+		}
+
+		@Override
+		protected void closeRows() {
+		}
+	}
+
+	/**
+	 * Dispatches like the former RowResultSet proxy
+	 */
+	private static ResultSet createProxy(final Object[][] data, final int rows) {
+		final Map<String, Integer> ops = new HashMap<String, Integer>();
+		ops.put("next", 0);
+		ops.put("close", 1);
+		return (ResultSet) Proxy.newProxyInstance(ResultSet.class
+				.getClassLoader(), new Class<?>[] { ResultSet.class },
+				new InvocationHandler() {
+					private int pos = 0;
+					private Object[] current;
+
+					@Override
+					public Object invoke(Object proxy, Method method,
+							Object[] args) throws Throwable {
+						Integer op = ops.get(method.getName());
+						if (op == null) {
+							Object value = current[(Integer) args[0] - 1];
+							return convert(value, method.getReturnType());
+						}
+						if (op == 0) {
+							current = pos < rows ? data[pos++ % data.length]
+									: null;
+							return current != null;
+						}
+						return null;
+					}
+				});
+	}
+
+	private static Object convert(Object value, Class<?> type) {
+		if (type.isPrimitive()) {
+			Number n = (Number) value;
+			if (type == int.class)
+				return n.intValue();
+			if (type == long.class)
+				return n.longValue();
+			if (type == double.class)
+				return n.doubleValue();
+		}
+		if (type.isInstance(value)) {
+			return value;
+		}
+		return value.toString();
+	}
+
+}
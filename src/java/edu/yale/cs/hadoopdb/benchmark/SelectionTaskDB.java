@@ -18,9 +18,6 @@ package edu.yale.cs.hadoopdb.benchmark;
 
 
 import java.io.IOException;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
@@ -37,7 +34,8 @@ import org.apache.hadoop.mapred.TextOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
 
 import edu.yale.cs.hadoopdb.connector.DBConst;
-import edu.yale.cs.hadoopdb.connector.DBWritable;
+import edu.yale.cs.hadoopdb.connector.AnnotatedDBWritable;
+import edu.yale.cs.hadoopdb.connector.DBField;
 import edu.yale.cs.hadoopdb.exec.DBJobBase;
 import edu.yale.cs.hadoopdb.util.HDFSUtil;
 
@@ -111,8 +109,10 @@ public class SelectionTaskDB extends DBJobBase {
 		}	
 	}
 
-	static class RankingsRecord implements DBWritable {
+	static class RankingsRecord extends AnnotatedDBWritable {
+		@DBField
 		private String pageURL;
+		@DBField
 		private int pageRank;
 
 		public String getPageURL() {
@@ -122,17 +122,6 @@ public class SelectionTaskDB extends DBJobBase {
 		public int getPageRank() {
 			return pageRank;
 		}
-
-		@Override
-		public void readFields(ResultSet resultSet) throws SQLException {
-			this.pageURL = resultSet.getString("pageURL");
-			this.pageRank = resultSet.getInt("pageRank");
-		}
-
-		@Override
-		public void write(PreparedStatement statement) throws SQLException {
-			throw new UnsupportedOperationException("No write() impl.");
-		}
 	}
 
 }
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Text;
+
+import edu.yale.cs.hadoopdb.connector.DBChunk;
+import edu.yale.cs.hadoopdb.connector.DBChunkHost;
+import edu.yale.cs.hadoopdb.connector.DBInputSplit;
+
+/**
+ * Compares the size and (de)serialization time of DBInputSplits written with
+ * the compact Writable encoding of DBChunk against the former Java
+ * serialization of DBChunk wrapped in a BytesWritable. Splitting and writing
+ * job.split is the part of job submission that depends on the encoding.
+ *
+ * Usage: SplitSerializationBenchmark [splits (10000)] [replicas (3)]
+ * [iterations (5)]
+ */
+public class SplitSerializationBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int splits = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int replicas = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		DBInputSplit[] input = createSplits(splits, replicas);
+
+		for (int i = 0; i < iterations; i++) {
+			long t0 = System.nanoTime();
+			DataOutputBuffer compact = writeCompact(input);
+			long t1 = System.nanoTime();
+			readCompact(compact, splits);
+			long t2 = System.nanoTime();
+			DataOutputBuffer legacy = writeLegacy(input);
+			long t3 = System.nanoTime();
+			readLegacy(legacy, splits);
+			long t4 = System.nanoTime();
+
+			System.out.println("iteration " + i + ": compact "
+					+ compact.getLength() + " bytes, write "
+					+ (t1 - t0) / 1000000 + " ms, read " + (t2 - t1) / 1000000
+					+ " ms | java serialization " + legacy.getLength()
+					+ " bytes, write " + (t3 - t2) / 1000000 + " ms, read "
+					+ (t4 - t3) / 1000000 + " ms");
+		}
+	}
+
+	/**
+	 * Creates splits similar to those of a SimpleCatalogGenerator catalog
+	 */
+	private static DBInputSplit[] createSplits(int splits, int replicas) {
+		DBInputSplit[] result = new DBInputSplit[splits];
+		int nodes = Math.max(replicas, splits / 10);
+		for (int i = 0; i < splits; i++) {
+			DBChunk chunk = new DBChunk(String.valueOf(i));
+			for (int r = 0; r < replicas; r++) {
+				String host = "10.0." + ((i + r) % nodes / 256) + "."
+						+ ((i + r) % nodes % 256);
+				chunk.addHost(new DBChunkHost(host, "jdbc:postgresql://"
+						+ host + ":5432/chunk_" + (i % 10), "hadoopdb",
+						"1234", "org.postgresql.Driver"));
+			}
+			chunk.setSizeEstimate(100000);
+			DBInputSplit split = new DBInputSplit();
+			split.setRelation("uservisits");
+			split.setChunk(chunk);
+			result[i] = split;
+		}
+		return result;
+	}
+
+	private static DataOutputBuffer writeCompact(DBInputSplit[] splits)
+			throws IOException {
+		DataOutputBuffer out = new DataOutputBuffer();
+		for (DBInputSplit split : splits) {
+			split.write(out);
+		}
+		return out;
+	}
+
+	private static void readCompact(DataOutputBuffer data, int splits)
+			throws IOException {
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(data.getData(), data.getLength());
+		for (int i = 0; i < splits; i++) {
+			new DBInputSplit().readFields(in);
+		}
+	}
+
+	/**
+	 * Writes splits the way DBInputSplit did before the compact encoding
+	 */
+	private static DataOutputBuffer writeLegacy(DBInputSplit[] splits)
+			throws IOException {
+		DataOutputBuffer out = new DataOutputBuffer();
+		for (DBInputSplit split : splits) {
+			Text.writeString(out, split.getRelation());
+			ByteArrayOutputStream byte_stream = new ByteArrayOutputStream();
+			ObjectOutputStream object_stream = new ObjectOutputStream(
+					byte_stream);
+			object_stream.writeObject(split.getChunk());
+			object_stream.close();
+			new BytesWritable(byte_stream.toByteArray()).write(out);
+			out.writeBoolean(false);
+			out.writeLong(split.getEstimatedRows());
+		}
+		return out;
+	}
+
+	private static void readLegacy(DataOutputBuffer data, int splits)
+			throws IOException, ClassNotFoundException {
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(data.getData(), data.getLength());
+		for (int i = 0; i < splits; i++) {
+			Text.readString(in);
+			BytesWritable bw = new BytesWritable();
+			bw.readFields(in);
+			ObjectInputStream object_stream = new ObjectInputStream(
+					new ByteArrayInputStream(bw.getBytes()));
+			object_stream.readObject();
+			in.readBoolean();
+			in.readLong();
+		}
+	}
+
+}
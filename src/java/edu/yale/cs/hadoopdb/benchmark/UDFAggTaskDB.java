@@ -18,9 +18,6 @@ package edu.yale.cs.hadoopdb.benchmark;
 
 
 import java.io.IOException;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -39,7 +36,8 @@ import org.apache.hadoop.mapred.lib.LongSumReducer;
 import org.apache.hadoop.util.ToolRunner;
 
 import edu.yale.cs.hadoopdb.connector.DBConst;
-import edu.yale.cs.hadoopdb.connector.DBWritable;
+import edu.yale.cs.hadoopdb.connector.AnnotatedDBWritable;
+import edu.yale.cs.hadoopdb.connector.DBField;
 import edu.yale.cs.hadoopdb.exec.DBJobBase;
 import edu.yale.cs.hadoopdb.util.HDFSUtil;
 
@@ -119,8 +117,10 @@ public class UDFAggTaskDB extends DBJobBase {
 		return -1;
 	}
 
-	static class DocumentRecord implements DBWritable {
+	static class DocumentRecord extends AnnotatedDBWritable {
+		@DBField
 		private String url;
+		@DBField
 		private String contents;
 
 		public String getUrl() {
@@ -138,17 +138,6 @@ public class UDFAggTaskDB extends DBJobBase {
 		public void setContents(String contents) {
 			this.contents = contents;
 		}
-
-		@Override
-		public void readFields(ResultSet resultSet) throws SQLException {
-			this.url = resultSet.getString("url");
-			this.contents = resultSet.getString("contents");
-		}
-
-		@Override
-		public void write(PreparedStatement statement) throws SQLException {
-			throw new UnsupportedOperationException("No write() impl.");
-		}
 	}
 
 }
@@ -18,11 +18,13 @@ package edu.yale.cs.hadoopdb.catalog;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import javax.xml.bind.JAXBException;
 
@@ -35,9 +37,12 @@ import org.apache.hadoop.util.StringUtils;
 
 import edu.yale.cs.hadoopdb.catalog.xml.ConfigurationMapping;
 import edu.yale.cs.hadoopdb.catalog.xml.Node;
+import edu.yale.cs.hadoopdb.catalog.xml.Partition;
 import edu.yale.cs.hadoopdb.connector.DBChunk;
 import edu.yale.cs.hadoopdb.connector.DBChunkHost;
 import edu.yale.cs.hadoopdb.connector.DBConst;
+import edu.yale.cs.hadoopdb.dataloader.GlobalHasher;
+import edu.yale.cs.hadoopdb.dataloader.LocalHasher;
 
 /**
  * HadoopDB Catalog: Simple XML file based implementation. No support for mid-job updates
@@ -47,6 +52,16 @@ public class Catalog {
 
 	public static final Log LOG = LogFactory.getLog(Catalog.class.getName());
 	
+	/**
+	 * Rows are stored in the chunk the data loader hashes the partition key
+	 * value to (see {@link #getHashChunk}). The layout is only known if the
+	 * catalog declares chunksPerNode (see {@link #getChunksPerNode}).
+	 */
+	public static final String HASH_PARTITIONING = "hash";
+	/**
+	 * Each chunk stores the partition key values within its bounds
+	 */
+	public static final String RANGE_PARTITIONING = "range";
 	
 	private static Catalog singleton;
 
@@ -89,56 +104,322 @@ public class Catalog {
 
 	/**
 	 * For a given relation, it returns a collection of chunks associated with the relation. 
-	 * Each chunk contains connection and location information.
+	 * Each chunk contains connection and location information as well as the
+	 * size estimate recorded in the catalog (if any). Chunks are returned in
+	 * the order of their ids.
+	 * 
+	 * Without replication, each chunk is assigned to one of its nodes such that
+	 * the estimated number of rows (or the number of chunks, if no sizes are
+	 * known) per node is balanced. Chunks are assigned largest first, each to
+	 * the least loaded of its nodes (LPT scheduling). The assignment is
+	 * deterministic, so repeated runs read a chunk from the same node.
 	 */
 	public Collection<DBChunk> getSplitLocationStructure(String relation) {
-		
-		Collection<DBChunk> list = new ArrayList<DBChunk>();
+		return getLocationStructure(relation, replication);
+	}
 
+	/**
+	 * Returns the chunks of a relation with all their replicas, independent
+	 * of the job's replication setting (e.g. for writing into all copies of
+	 * a chunk).
+	 */
+	public Collection<DBChunk> getReplicatedLocationStructure(String relation) {
+		return getLocationStructure(relation, true);
+	}
+
+	private Collection<DBChunk> getLocationStructure(String relation,
+			boolean replication) {
+		
 		Map<String, List<Node>> chunkHostMap = xmlConfig
 				.getPartitionsForRelation(relation);
 		if(chunkHostMap == null) {
 			throw new RuntimeException("Relation '" + relation + "' is not defined in the catalog.");
 		}
-		Set<Node> usedNodes = new HashSet<Node>();
-		for (String chunk_id : chunkHostMap.keySet()) {
+
+		List<String> chunkIds = new ArrayList<String>(chunkHostMap.keySet());
+		Collections.sort(chunkIds, CHUNK_ID_ORDER);
+
+		Map<String, DBChunk> chunks = new HashMap<String, DBChunk>();
+		for (String chunk_id : chunkIds) {
 			DBChunk chunk = new DBChunk(chunk_id);
+			Long size = xmlConfig.getPartitionForNodeRelation(
+					chunkHostMap.get(chunk_id).get(0), relation, chunk_id)
+					.getSize();
+			if (size != null) {
+				chunk.setSizeEstimate(size);
+			}
 			if (replication) {
 				for (Node node : chunkHostMap.get(chunk_id)) {
-					chunk.addHost(new DBChunkHost(node.getLocation(),
-							xmlConfig.getPartitionForNodeRelation(node,
-									relation, chunk_id).getUrl(), node
-									.getUsername(), node.getPassword(), node
-									.getDriver()));
+					chunk.addHost(createHost(node, relation, chunk_id));
 				}
-			} else {
-				for (Node node : chunkHostMap.get(chunk_id)) {
-					if (usedNodes.contains(node))
-						;
-					else {
-						usedNodes.add(node);
-						chunk.addHost(new DBChunkHost(node.getLocation(),
-								xmlConfig.getPartitionForNodeRelation(node,
-										relation, chunk_id).getUrl(), node
-										.getUsername(), node.getPassword(),
-								node.getDriver()));
-						break;
-
-					}
+			}
+			chunks.put(chunk_id, chunk);
+		}
+
+		if (!replication) {
+			assignNodes(relation, chunkIds, chunks, chunkHostMap);
+		}
+
+		Collection<DBChunk> list = new ArrayList<DBChunk>();
+		for (String chunk_id : chunkIds) {
+			list.add(chunks.get(chunk_id));
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the number of chunks per node of a relation loaded with
+	 * GlobalHasher and LocalHasher (see {@link #getHashChunk}) or 0 if the
+	 * layout is not known: the catalog must declare chunksPerNode and the
+	 * chunk ids must be 0 .. n*chunksPerNode-1 as assigned by
+	 * SimpleCatalogGenerator.
+	 */
+	public int getChunksPerNode(String relation) {
+		Integer chunksPerNode = xmlConfig.getChunksPerNode(relation);
+		Map<String, List<Node>> chunks = xmlConfig
+				.getPartitionsForRelation(relation);
+		if (chunksPerNode == null || chunksPerNode <= 0 || chunks == null
+				|| chunks.isEmpty() || chunks.size() % chunksPerNode != 0) {
+			return 0;
+		}
+		for (int i = 0; i < chunks.size(); i++) {
+			if (!chunks.containsKey(String.valueOf(i))) {
+				return 0;
+			}
+		}
+		return chunksPerNode;
+	}
+
+	/**
+	 * Returns the number of chunks of a relation
+	 */
+	public int getChunkCount(String relation) {
+		Map<String, List<Node>> chunks = xmlConfig
+				.getPartitionsForRelation(relation);
+		return chunks == null ? 0 : chunks.size();
+	}
+
+	/**
+	 * Returns the id of the chunk the data loader stores a row with the given
+	 * partition key value in: GlobalHasher assigns the row to a node (there
+	 * are chunks/chunksPerNode of them), LocalHasher to one of the node's
+	 * chunks, and chunk i of node n has id n*chunksPerNode+i.
+	 */
+	public static int getHashChunk(String value, int chunks, int chunksPerNode) {
+		int node = GlobalHasher.getPartition(value, chunks / chunksPerNode);
+		return node * chunksPerNode
+				+ LocalHasher.getPartition(value, chunksPerNode);
+	}
+
+	/**
+	 * Returns the column a relation is hash partitioned on or null if the
+	 * catalog does not declare one
+	 */
+	public String getPartitionKey(String relation) {
+		return xmlConfig.getPartitionKey(relation);
+	}
+
+	/**
+	 * Returns the partitioning scheme of a relation (HASH_PARTITIONING,
+	 * RANGE_PARTITIONING) or null if the catalog does not declare one
+	 */
+	public String getPartitionScheme(String relation) {
+		return xmlConfig.getPartitionScheme(relation);
+	}
+
+	/**
+	 * Returns the {lower, upper} bounds (inclusive, either may be null) of
+	 * the partition key values stored in a chunk of a range partitioned
+	 * relation
+	 */
+	public String[] getChunkBounds(String relation, String chunk_id) {
+		List<Node> nodes = xmlConfig.getNodesForRelationAndPartition(relation,
+				chunk_id);
+		if (nodes == null || nodes.isEmpty()) {
+			return new String[2];
+		}
+		Partition partition = xmlConfig.getPartitionForNodeRelation(nodes
+				.get(0), relation, chunk_id);
+		return new String[] { partition.getLowerBound(),
+				partition.getUpperBound() };
+	}
+
+	/**
+	 * Returns true if two relations are co-partitioned on the given columns:
+	 * both are partitioned on them with the same scheme and layout (the same
+	 * chunks per node if hash partitioned, the same bounds per chunk if range
+	 * partitioned) and every chunk of one relation is stored in the same
+	 * databases (nodes and URLs) as the chunk of the other relation with the
+	 * same id. Rows with equal keys can then be joined within each chunk
+	 * database.
+	 */
+	public boolean isCoPartitioned(String relation1, String column1,
+			String relation2, String column2) {
+
+		String key1 = getPartitionKey(relation1);
+		String key2 = getPartitionKey(relation2);
+		if (key1 == null || key2 == null || !key1.equalsIgnoreCase(column1)
+				|| !key2.equalsIgnoreCase(column2)) {
+			return false;
+		}
+		String scheme = getPartitionScheme(relation1);
+		if (scheme == null || !scheme.equals(getPartitionScheme(relation2))) {
+			return false;
+		}
+		if (HASH_PARTITIONING.equals(scheme)) {
+			int chunksPerNode = getChunksPerNode(relation1);
+			if (chunksPerNode == 0
+					|| chunksPerNode != getChunksPerNode(relation2)) {
+				return false;
+			}
+		} else if (!RANGE_PARTITIONING.equals(scheme)) {
+			return false;
+		}
+
+		Map<String, List<Node>> chunks1 = xmlConfig
+				.getPartitionsForRelation(relation1);
+		Map<String, List<Node>> chunks2 = xmlConfig
+				.getPartitionsForRelation(relation2);
+		if (chunks1 == null || chunks2 == null
+				|| !chunks1.keySet().equals(chunks2.keySet())) {
+			return false;
+		}
+		for (String chunk_id : chunks1.keySet()) {
+			if (RANGE_PARTITIONING.equals(scheme)
+					&& !Arrays.equals(getChunkBounds(relation1, chunk_id),
+							getChunkBounds(relation2, chunk_id))) {
+				return false;
+			}
+			List<Node> nodes = chunks1.get(chunk_id);
+			if (nodes.size() != chunks2.get(chunk_id).size()
+					|| !nodes.containsAll(chunks2.get(chunk_id))) {
+				return false;
+			}
+			for (Node node : nodes) {
+				String url1 = xmlConfig.getPartitionForNodeRelation(node,
+						relation1, chunk_id).getUrl();
+				String url2 = xmlConfig.getPartitionForNodeRelation(node,
+						relation2, chunk_id).getUrl();
+				if (!url1.equals(url2)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Assigns every chunk to one of its nodes (LPT over replicas)
+	 */
+	private void assignNodes(String relation, List<String> chunkIds,
+			final Map<String, DBChunk> chunks,
+			Map<String, List<Node>> chunkHostMap) {
+
+		// chunks without size estimate weigh as much as an average chunk
+		long known = 0;
+		int knownCount = 0;
+		for (DBChunk chunk : chunks.values()) {
+			if (chunk.getSizeEstimate() > 0) {
+				known += chunk.getSizeEstimate();
+				knownCount++;
+			}
+		}
+		final long defaultWeight = knownCount == 0 ? 1 : Math.max(1, known
+				/ knownCount);
+
+		List<String> order = new ArrayList<String>(chunkIds);
+		Collections.sort(order, new Comparator<String>() {
+			@Override
+			public int compare(String c1, String c2) {
+				long w1 = weight(chunks.get(c1), defaultWeight);
+				long w2 = weight(chunks.get(c2), defaultWeight);
+				if (w1 != w2) {
+					return w1 > w2 ? -1 : 1;
+				}
+				return CHUNK_ID_ORDER.compare(c1, c2);
+			}
+		});
+
+		Map<String, long[]> load = new HashMap<String, long[]>();
+		for (String chunk_id : order) {
+			Node best = null;
+			long[] bestLoad = null;
+			for (Node node : chunkHostMap.get(chunk_id)) {
+				long[] l = load.get(node.getLocation());
+				if (l == null) {
+					l = new long[2];
+					load.put(node.getLocation(), l);
 				}
-				if (chunk.getHosts().isEmpty()) {
-					Node node = chunkHostMap.get(chunk_id).get(0);
-					chunk.addHost(new DBChunkHost(node.getLocation(),
-							xmlConfig.getPartitionForNodeRelation(node,
-									relation, chunk_id).getUrl(), node
-									.getUsername(), node.getPassword(), node
-									.getDriver()));
+				if (best == null
+						|| lessLoaded(l, node, bestLoad, best)) {
+					best = node;
+					bestLoad = l;
 				}
 			}
-			list.add(chunk);
+			DBChunk chunk = chunks.get(chunk_id);
+			bestLoad[0] += weight(chunk, defaultWeight);
+			bestLoad[1]++;
+			chunk.addHost(createHost(best, relation, chunk_id));
 		}
-		
-		return list;
-	}	
+
+		if (LOG.isDebugEnabled()) {
+			for (Map.Entry<String, long[]> e : load.entrySet()) {
+				LOG.debug("Relation " + relation + ": node " + e.getKey()
+						+ " reads " + e.getValue()[1] + " chunk(s), estimated weight "
+						+ e.getValue()[0]);
+			}
+		}
+	}
+
+	/**
+	 * Compares {weight, chunks} loads of two nodes, ties broken by location
+	 */
+	private static boolean lessLoaded(long[] l1, Node n1, long[] l2, Node n2) {
+		if (l1[0] != l2[0]) {
+			return l1[0] < l2[0];
+		}
+		if (l1[1] != l2[1]) {
+			return l1[1] < l2[1];
+		}
+		return n1.getLocation().compareTo(n2.getLocation()) < 0;
+	}
+
+	private static long weight(DBChunk chunk, long defaultWeight) {
+		return chunk.getSizeEstimate() > 0 ? chunk.getSizeEstimate()
+				: defaultWeight;
+	}
+
+	private DBChunkHost createHost(Node node, String relation, String chunk_id) {
+		return new DBChunkHost(node.getLocation(), xmlConfig
+				.getPartitionForNodeRelation(node, relation, chunk_id).getUrl(),
+				node.getUsername(), node.getPassword(), node.getDriver());
+	}
+
+	/**
+	 * Orders numeric chunk ids numerically, followed by other ids in
+	 * lexicographic order
+	 */
+	public static final Comparator<String> CHUNK_ID_ORDER = new Comparator<String>() {
+		@Override
+		public int compare(String c1, String c2) {
+			Long l1 = toLong(c1);
+			Long l2 = toLong(c2);
+			if (l1 != null && l2 != null) {
+				return l1.compareTo(l2);
+			}
+			if (l1 != null || l2 != null) {
+				return l1 != null ? -1 : 1;
+			}
+			return c1.compareTo(c2);
+		}
+
+		private Long toLong(String s) {
+			try {
+				return Long.parseLong(s);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+	};
 	
 }
@@ -24,7 +24,9 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import javax.xml.bind.JAXBContext;
@@ -57,10 +59,13 @@ public class SimpleCatalogGenerator {
 	protected static final String DRIVER = "driver";
 	protected static final String USERNAME = "username";
 	protected static final String PASSWORD = "password";
+	// optional, e.g. "rankings:pageURL, uservisits:destURL"
+	protected static final String PARTITION_KEYS = "partition_keys";
 	
 	protected List<String> relations_unchunked = new ArrayList<String>();
 	protected List<String> relations_chunked = new ArrayList<String>();
 	protected List<String> nodes = new ArrayList<String>();
+	protected Map<String, String> partition_keys = new HashMap<String, String>();
 	
 	protected Properties properties = new Properties();
 	
@@ -86,6 +91,12 @@ public class SimpleCatalogGenerator {
 		relations_chunked = Arrays.asList(properties.getProperty(RELATIONS_CHUNKED).split("\\s*,\\s*"));
 		relations_unchunked = Arrays.asList(properties.getProperty(RELATIONS_UNCHUNKED).split("\\s*,\\s*"));
 		nodes = getStringsAsList(new File(properties.getProperty(NODES_FILE)));
+		if (properties.getProperty(PARTITION_KEYS) != null) {
+			for (String key : properties.getProperty(PARTITION_KEYS).trim().split("\\s*,\\s*")) {
+				String[] relationKey = key.split("\\s*:\\s*");
+				partition_keys.put(relationKey[0], relationKey[1]);
+			}
+		}
 	}
 	protected static List<String> getStringsAsList(File rfile) {
 		List<String> list = new ArrayList<String>();
@@ -137,6 +148,8 @@ public class SimpleCatalogGenerator {
 			for(String relation : relations_chunked){
 				Relation r = factory.createRelation();
 				r.setId(relation);
+				r.setPartitionKey(partition_keys.get(relation));
+				r.setChunksPerNode(new Integer(properties.getProperty(CHUNKS_PER_NODE)));
 				
 				int start_index = node_counter*(new Integer(properties.getProperty(CHUNKS_PER_NODE)));
 				for(int index = start_index; index < start_index + (new Integer(properties.getProperty(CHUNKS_PER_NODE))); index ++) {
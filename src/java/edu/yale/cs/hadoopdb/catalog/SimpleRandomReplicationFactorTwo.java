@@ -193,6 +193,8 @@ public class SimpleRandomReplicationFactorTwo extends SimpleCatalogGenerator {
 			for(String relation : relations_chunked){
 				Relation r = factory.createRelation();
 				r.setId(relation);
+				r.setPartitionKey(partition_keys.get(relation));
+				r.setChunksPerNode(chunks_per_node);
 				
 				int start_index = node_counter*chunks_per_node;
 				for(int index = start_index; index < start_index + chunks_per_node; index ++) {
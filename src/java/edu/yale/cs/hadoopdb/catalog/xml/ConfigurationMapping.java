@@ -106,6 +106,60 @@ public class ConfigurationMapping {
 			return null;
 	}
 
+	/**
+	 * Returns the column a relation is partitioned on (as declared by its
+	 * first Relation element with a partitionKey) or null
+	 */
+	public String getPartitionKey(String relation_id) {
+		for (Relation relation : getRelations(relation_id)) {
+			if (relation.getPartitionKey() != null) {
+				return relation.getPartitionKey().trim();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the partitioning scheme of a relation (as declared by its
+	 * first Relation element with a partitionScheme) or null
+	 */
+	public String getPartitionScheme(String relation_id) {
+		for (Relation relation : getRelations(relation_id)) {
+			if (relation.getPartitionScheme() != null) {
+				return relation.getPartitionScheme().trim().toLowerCase();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the number of chunks per node a relation was loaded with (as
+	 * declared by its first Relation element with chunksPerNode) or null
+	 */
+	public Integer getChunksPerNode(String relation_id) {
+		for (Relation relation : getRelations(relation_id)) {
+			if (relation.getChunksPerNode() != null) {
+				return relation.getChunksPerNode();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the Relation elements of a relation on all nodes
+	 */
+	private List<Relation> getRelations(String relation_id) {
+		List<Relation> relations = new ArrayList<Relation>();
+		for (Node node : dbConfig.getNodes()) {
+			for (Relation relation : node.getRelations()) {
+				if (relation.getId().trim().equalsIgnoreCase(relation_id.trim())) {
+					relations.add(relation);
+				}
+			}
+		}
+		return relations;
+	}
+
 	public List<Node> getNodesForRelationAndPartition(String relation_id, String partition_id) {
 		if (relationPartitionNodeMap == null)
 			updateRelationMappings();
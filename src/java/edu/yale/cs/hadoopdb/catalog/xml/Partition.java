@@ -25,6 +25,9 @@ import javax.xml.bind.annotation.XmlType;
  *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
  *       &lt;attribute name="id" use="required" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="url" use="required" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="size" type="{http://www.w3.org/2001/XMLSchema}long" />
+ *       &lt;attribute name="lowerBound" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="upperBound" type="{http://www.w3.org/2001/XMLSchema}string" />
  *     &lt;/restriction>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -40,6 +43,12 @@ public class Partition {
     protected String id;
     @XmlAttribute(required = true)
     protected String url;
+    @XmlAttribute
+    protected Long size;
+    @XmlAttribute
+    protected String lowerBound;
+    @XmlAttribute
+    protected String upperBound;
 
     /**
      * Gets the value of the id property.
@@ -89,4 +98,76 @@ public class Partition {
         this.url = value;
     }
 
+    /**
+     * Gets the value of the size property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Long }
+     *     
+     */
+    public Long getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the value of the size property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Long }
+     *     
+     */
+    public void setSize(Long value) {
+        this.size = value;
+    }
+
+    /**
+     * Gets the value of the lowerBound property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Sets the value of the lowerBound property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setLowerBound(String value) {
+        this.lowerBound = value;
+    }
+
+    /**
+     * Gets the value of the upperBound property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * Sets the value of the upperBound property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setUpperBound(String value) {
+        this.upperBound = value;
+    }
+
 }
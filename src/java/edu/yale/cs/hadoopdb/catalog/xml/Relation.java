@@ -31,6 +31,9 @@ import javax.xml.bind.annotation.XmlType;
  *         &lt;element name="Partitions" type="{http://edu.yale.cs.db.hadoop/DBConfigurationSchema}Partition"/>
  *       &lt;/sequence>
  *       &lt;attribute name="id" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="partitionKey" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="partitionScheme" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="chunksPerNode" type="{http://www.w3.org/2001/XMLSchema}int" />
  *     &lt;/restriction>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -48,6 +51,12 @@ public class Relation {
     protected List<Partition> partitions;
     @XmlAttribute
     protected String id;
+    @XmlAttribute
+    protected String partitionKey;
+    @XmlAttribute
+    protected String partitionScheme;
+    @XmlAttribute
+    protected Integer chunksPerNode;
 
     /**
      * Gets the value of the partitions property.
@@ -102,4 +111,76 @@ public class Relation {
         this.id = value;
     }
 
+    /**
+     * Gets the value of the partitionKey property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    /**
+     * Sets the value of the partitionKey property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setPartitionKey(String value) {
+        this.partitionKey = value;
+    }
+
+    /**
+     * Gets the value of the partitionScheme property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getPartitionScheme() {
+        return partitionScheme;
+    }
+
+    /**
+     * Sets the value of the partitionScheme property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setPartitionScheme(String value) {
+        this.partitionScheme = value;
+    }
+
+    /**
+     * Gets the value of the chunksPerNode property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getChunksPerNode() {
+        return chunksPerNode;
+    }
+
+    /**
+     * Sets the value of the chunksPerNode property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setChunksPerNode(Integer value) {
+        this.chunksPerNode = value;
+    }
+
 }
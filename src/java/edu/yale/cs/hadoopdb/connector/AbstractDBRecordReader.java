@@ -20,14 +20,17 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Reporter;
 import org.apache.hadoop.util.ReflectionUtils;
 
 /**
@@ -46,15 +49,63 @@ public abstract class AbstractDBRecordReader {
 	 */
 	public static final int MAX_CONNECTION_TRIALS = 10;
 
+	/**
+	 * Times to first row of hedged reads in this JVM
+	 */
+	protected static final LatencyTracker FIRST_ROW_LATENCY = new LatencyTracker(
+			1000);
+
 	protected Connection connection;
-	protected ResultSet results;
-	protected Statement statement;
+	protected volatile ResultSet results;
+	protected volatile Statement statement;
+
+	/**
+	 * Host the current connection belongs to (needed to return pooled
+	 * connections)
+	 */
+	protected DBChunkHost connectedHost;
+	protected boolean pooled = true;
+
+	/**
+	 * SQL dialect of the connected host
+	 */
+	protected SQLDialect dialect;
+
+	/**
+	 * Chooses replicas when the chunk is not local
+	 */
+	protected HostSelectionPolicy hostSelection;
+	protected HostLoadTracker loadTracker = HostLoadTracker.getInstance();
 
 	protected long pos = 0;
+	// estimated number of rows returned by the query (0 if unknown)
+	protected long estimatedRows = 0;
 
 	protected long startTime = 0;
 	protected long connTime = 0;
 	protected long queryTime = 0;
+	protected long firstRowTime = 0;
+
+	// statistics published as counters on close (see DBCounter)
+	protected Reporter reporter;
+	protected long bytesDecoded = 0;
+	protected int connectRetries = 0;
+	protected boolean localityMiss = false;
+	protected boolean hedged = false;
+
+	// keyset resume state (see fetchNext())
+	protected DBInputSplit resumeSplit;
+	protected JobConf resumeConf;
+	protected String baseSql;
+	protected String[] resumeKeys;
+	protected Object[] lastKey;
+	protected boolean hasLastKey = false;
+	protected boolean resumeKeyUnique = true;
+	protected int resumeAttempts = 0;
+
+	// cancellation on shutdown or idle consumer (see QueryCanceller)
+	protected QueryCanceller.Registration cancelRegistration;
+	protected volatile boolean cancelled = false;
 
 	/**
 	 * Helper method to retrieve local host name or null if not possible
@@ -82,61 +133,485 @@ public abstract class AbstractDBRecordReader {
 	protected void setupDB(DBInputSplit split, JobConf conf)
 			throws SQLException {
 
+		pooled = conf.getBoolean(DBConst.DB_CONNECTION_POOL, true);
+		loadTracker.configure(conf);
+		hostSelection = createHostSelectionPolicy(conf);
+		resumeKeys = conf.getStrings(DBConst.DB_RESUME_KEY);
+		if (resumeKeys != null) {
+			for (int i = 0; i < resumeKeys.length; i++) {
+				resumeKeys[i] = resumeKeys[i].trim();
+			}
+			lastKey = new Object[resumeKeys.length];
+		}
+		resumeSplit = split;
+		resumeConf = conf;
+		if (pooled) {
+			DBConnectionPool.getInstance().configure(conf);
+		}
+
 		try {
 			startTime = System.currentTimeMillis();
 			connection = getConnection(split);
-			// Optimization options including specifying forward direction,
-			// read-only cursor
-			// and a default fetch size to prevent db cache overloading.
-			statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
-					ResultSet.CONCUR_READ_ONLY);
-			connection.setAutoCommit(false);
-			statement.setFetchDirection(ResultSet.FETCH_FORWARD);
-			statement.setFetchSize(conf.getInt(DBConst.DB_FETCH_SIZE,
-					DBConst.SQL_DEFAULT_FETCH_SIZE));
+			statement = createStatement(connection, conf);
+			cancelRegistration = QueryCanceller.getInstance().register(this,
+					conf.getLong(DBConst.DB_CANCEL_IDLE_TIMEOUT,
+							DBConst.DEFAULT_CANCEL_IDLE_TIMEOUT));
 
 			connTime = System.currentTimeMillis();
 
 			String sql = prepareSqlQuery(getSqlQuery(), split, conf);
+			estimatedRows = estimateRows(sql, split, conf);
+			if (resumeKeys != null) {
+				baseSql = sql;
+				sql = getResumeQuery(false);
+			}
 
 			LOG.info(sql);
-			results = statement.executeQuery(sql);
+			results = null;
+			if (conf.getBoolean(DBConst.DB_COPY, false)) {
+				results = openCopy(sql);
+			}
+			if (results == null) {
+				if (conf.getBoolean(DBConst.DB_HEDGE, false)
+						&& split.getChunk().getHosts().size() > 1) {
+					results = executeHedged(sql, split, conf);
+				} else {
+					results = statement.executeQuery(sql);
+				}
+			}
 			queryTime = System.currentTimeMillis();
+			loadTracker.recordLatency(connectedHost, queryTime - connTime);
+
+			wrapPrefetching(split, conf);
+			cancelRegistration.touch();
 
 		} catch (SQLException e) {
 
+			QueryCanceller.getInstance().unregister(this);
 			try {
 				if (results != null)
 					results.close();
 				if (statement != null)
 					statement.close();
-				if (connection != null)
-					connection.close();
 			} catch (SQLException ex) {
 				LOG.info(ex, ex);
 			}
+			if (connection != null) {
+				discardConnection();
+			}
 
 			throw e;
 		}
 	}
 
 	/**
-	 * Prepares a SQL query, if no preparer specified then returns the same sqlQuery
+	 * Wraps the results in a {@link PrefetchingResultSet} if prefetching is
+	 * enabled
+	 */
+	protected void wrapPrefetching(DBInputSplit split, JobConf conf)
+			throws SQLException {
+		if (conf.getBoolean(DBConst.DB_PREFETCH, false)) {
+			results = PrefetchingResultSet.wrap(results, statement, conf
+					.getInt(DBConst.DB_PREFETCH_BATCH_SIZE, conf.getInt(
+							DBConst.DB_FETCH_SIZE,
+							DBConst.SQL_DEFAULT_FETCH_SIZE)), conf.getInt(
+					DBConst.DB_PREFETCH_CAPACITY,
+					DBConst.DEFAULT_PREFETCH_CAPACITY), "chunk "
+					+ split.getChunk().getId());
+		}
+	}
+
+	/**
+	 * Moves to the next row of the results. If a resume key is configured
+	 * ({@link DBConst#DB_RESUME_KEY}), the key of every row is remembered and
+	 * an error while fetching is handled by reconnecting (to another replica
+	 * if the chunk has one) and continuing after the last row returned. The
+	 * key must be unique: once a duplicate or NULL key has been seen, errors
+	 * are rethrown, since continuing after it could skip rows. Errors of a
+	 * cancelled query are rethrown as well.
+	 * Record readers should use this method instead of results.next().
+	 */
+	protected boolean fetchNext() throws SQLException {
+		if (cancelRegistration != null) {
+			cancelRegistration.touch();
+		}
+		if (resumeKeys == null) {
+			return results.next();
+		}
+		while (true) {
+			try {
+				if (!results.next()) {
+					return false;
+				}
+				boolean duplicate = hasLastKey;
+				for (int i = 0; i < resumeKeys.length; i++) {
+					Object key = results.getObject(resumeKeys[i]);
+					if (key == null) {
+						duplicate = true;
+					} else if (!key.equals(lastKey[i])) {
+						duplicate = false;
+					}
+					lastKey[i] = key;
+				}
+				hasLastKey = true;
+				if (duplicate && resumeKeyUnique) {
+					LOG.warn("Resume key " + Arrays.toString(resumeKeys)
+							+ " is NULL or not unique in chunk "
+							+ resumeSplit.getChunk().getId()
+							+ ", the scan will not be resumed.");
+					resumeKeyUnique = false;
+				}
+				return true;
+			} catch (SQLException e) {
+				if (cancelled) {
+					throw e;
+				}
+				resume(e);
+			}
+		}
+	}
+
+	/**
+	 * Reconnects after a failed fetch and re-executes the query starting
+	 * after the last returned row. Rethrows the error if the maximum number
+	 * of resume attempts has been reached or the resume key is not unique.
+	 */
+	protected void resume(SQLException error) throws SQLException {
+		int maxAttempts = resumeConf.getInt(DBConst.DB_RESUME_MAX_ATTEMPTS,
+				DBConst.DEFAULT_RESUME_MAX_ATTEMPTS);
+		if (resumeAttempts >= maxAttempts || !resumeKeyUnique) {
+			throw error;
+		}
+		resumeAttempts++;
+		DBChunkHost failedHost = connectedHost;
+		LOG.warn("Error while reading chunk "
+				+ resumeSplit.getChunk().getId() + " from "
+				+ failedHost.getHost() + " after " + pos
+				+ " rows, resuming (attempt " + resumeAttempts + "): "
+				+ error);
+
+		try {
+			results.close();
+			statement.close();
+		} catch (SQLException e) {
+			LOG.debug("Error while closing failed query.", e);
+		}
+		// the connection may be broken, so it is not returned to the pool
+		discardConnection();
+
+		connection = getConnection(resumeSplit, failedHost);
+		statement = createStatement(connection, resumeConf);
+		String sql = getResumeQuery(pos > 0);
+		LOG.info(sql);
+		if (pos > 0) {
+			PreparedStatement ps = connection.prepareStatement(sql,
+					ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			statement.close();
+			statement = ps;
+			dialect.configureStreaming(connection, ps, resumeConf.getInt(
+					DBConst.DB_FETCH_SIZE, DBConst.SQL_DEFAULT_FETCH_SIZE));
+			for (int i = 0; i < lastKey.length; i++) {
+				ps.setObject(i + 1, lastKey[i]);
+			}
+			results = ps.executeQuery();
+		} else {
+			results = statement.executeQuery(sql);
+		}
+		wrapPrefetching(resumeSplit, resumeConf);
+	}
+
+	/**
+	 * Returns the query ordered by the resume key. If after is true, the
+	 * query only returns rows with keys greater than the last returned key
+	 * (given as parameters).
+	 */
+	protected String getResumeQuery(boolean after) {
+		String query = baseSql.trim();
+		while (query.endsWith(";")) {
+			query = query.substring(0, query.length() - 1).trim();
+		}
+		StringBuilder keys = new StringBuilder();
+		StringBuilder params = new StringBuilder();
+		for (int i = 0; i < resumeKeys.length; i++) {
+			if (i > 0) {
+				keys.append(", ");
+				params.append(", ");
+			}
+			keys.append(resumeKeys[i]);
+			params.append("?");
+		}
+
+		StringBuilder sb = new StringBuilder("SELECT * FROM (");
+		sb.append(query).append(") AS hadoopdb_resume");
+		if (after) {
+			if (resumeKeys.length == 1) {
+				sb.append(" WHERE ").append(keys).append(" > ?");
+			} else {
+				sb.append(" WHERE (").append(keys).append(") > (").append(
+						params).append(")");
+			}
+		}
+		sb.append(" ORDER BY ").append(keys).append(";");
+		return sb.toString();
+	}
+
+	/**
+	 * Creates a statement for reading a chunk. Optimization options include
+	 * specifying forward direction, read-only cursor and a fetch size to
+	 * prevent db cache overloading; the dialect of the connected host sets
+	 * them up so that the driver streams the result.
+	 */
+	protected Statement createStatement(Connection connection, JobConf conf)
+			throws SQLException {
+		Statement statement = connection.createStatement(
+				ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		dialect.configureStreaming(connection, statement, conf.getInt(
+				DBConst.DB_FETCH_SIZE, DBConst.SQL_DEFAULT_FETCH_SIZE));
+		return statement;
+	}
+
+	/**
+	 * Executes the query as a hedged read. If the connected host does not
+	 * return the first row within the hedge threshold, the query is also
+	 * issued to another replica of the chunk. The reader continues with
+	 * whichever replica returns its first row first; the other query is
+	 * cancelled.
+	 */
+	protected ResultSet executeHedged(String sql, DBInputSplit split,
+			JobConf conf) throws SQLException {
+
+		long threshold = getHedgeThreshold(conf);
+		Object lock = new Object();
+		QueryAttempt primary = new QueryAttempt(connectedHost, connection,
+				statement, sql, lock);
+		QueryAttempt backup = null;
+		primary.start();
+
+		try {
+			boolean primaryDone;
+			synchronized (lock) {
+				long deadline = System.currentTimeMillis() + threshold;
+				long wait;
+				while (!primary.isDone()
+						&& (wait = deadline - System.currentTimeMillis()) > 0) {
+					lock.wait(wait);
+				}
+				primaryDone = primary.isDone();
+			}
+
+			if (!primaryDone) {
+				backup = startBackup(sql, split, conf, lock, threshold);
+			}
+
+			QueryAttempt winner = null;
+			synchronized (lock) {
+				while (winner == null) {
+					if (primary.succeeded()) {
+						winner = primary;
+					} else if (backup != null && backup.succeeded()) {
+						winner = backup;
+					} else if (primary.isDone()
+							&& (backup == null || backup.isDone())) {
+						throw primary.getError();
+					} else {
+						lock.wait();
+					}
+				}
+				primaryDone = primary.isDone();
+			}
+
+			QueryAttempt loser = (winner == primary) ? backup : primary;
+			if (loser == primary && !primaryDone) {
+				// a primary beaten by the backup took at least this long (not
+				// sampling it would let the threshold drift down)
+				FIRST_ROW_LATENCY.record(primary.getElapsedTime());
+			}
+			if (loser != null) {
+				LOG.info("Hedged read of chunk " + split.getChunk().getId()
+						+ " served by " + winner.getHost().getHost()
+						+ ", cancelling query on " + loser.getHost().getHost());
+				loser.abandon();
+				loadTracker.release(loser.getHost());
+			}
+			FIRST_ROW_LATENCY.record(winner.getTimeToFirstRow());
+
+			connectedHost = winner.getHost();
+			connection = winner.getConnection();
+			statement = winner.getStatement();
+			return winner.getResults();
+
+		} catch (InterruptedException e) {
+			primary.abandon();
+			loadTracker.release(primary.getHost());
+			if (backup != null) {
+				backup.abandon();
+				loadTracker.release(backup.getHost());
+			}
+			connection = null;
+			throw new SQLException("Interrupted while waiting for query.");
+		}
+	}
+
+	/**
+	 * Issues the query to another replica. Returns null if no other replica
+	 * can be reached.
+	 */
+	private QueryAttempt startBackup(String sql, DBInputSplit split,
+			JobConf conf, Object lock, long threshold) {
+		DBChunkHost host = hostSelection.selectHost(split.getChunk(),
+				connectedHost);
+		if (host == connectedHost) {
+			return null;
+		}
+		LOG.info("No row from " + connectedHost.getHost() + " after "
+				+ threshold + " ms, hedging chunk " + split.getChunk().getId()
+				+ " to " + host.getHost());
+		try {
+			Connection c = openConnection(host);
+			hedged = true;
+			QueryAttempt backup = new QueryAttempt(host, c, createStatement(
+					c, conf), sql, lock);
+			loadTracker.acquire(host);
+			backup.start();
+			return backup;
+		} catch (Exception e) {
+			LOG.info("Could not hedge to " + host.getHost() + ": " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the configured hedge threshold or, if none is configured, the
+	 * 95th percentile of times to first row observed in this JVM (once enough
+	 * samples are available).
+	 */
+	protected long getHedgeThreshold(JobConf conf) {
+		long threshold = conf.getLong(DBConst.DB_HEDGE_THRESHOLD, 0);
+		if (threshold > 0) {
+			return threshold;
+		}
+		if (FIRST_ROW_LATENCY.size() >= DBConst.HEDGE_MIN_SAMPLES) {
+			return Math.max(DBConst.HEDGE_MIN_THRESHOLD, FIRST_ROW_LATENCY
+					.percentile(0.95));
+		}
+		return DBConst.DEFAULT_HEDGE_THRESHOLD;
+	}
+
+	/**
+	 * Instantiates the configured {@link HostSelectionPolicy} (random replica
+	 * selection by default)
+	 */
+	protected HostSelectionPolicy createHostSelectionPolicy(JobConf conf) {
+		String policyClass = conf.get(DBConst.DB_HOST_SELECTION_POLICY);
+		if (policyClass == null) {
+			return new RandomHostSelectionPolicy();
+		}
+		try {
+			return (HostSelectionPolicy) ReflectionUtils.newInstance(Class
+					.forName(policyClass), conf);
+		} catch (ClassNotFoundException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Starts reading the query result through the bulk export path of the
+	 * connected host's dialect (PostgreSQL's binary COPY). Returns null if
+	 * the dialect has none or it cannot be used for the query; the query is
+	 * then executed through JDBC.
+	 */
+	protected ResultSet openCopy(String sql) {
+		if (!dialect.supportsExport()) {
+			LOG.info("COPY is not supported by " + dialect.getName()
+					+ ", using JDBC.");
+			return null;
+		}
+		try {
+			return dialect.openExport(connection, statement, sql);
+		} catch (SQLException e) {
+			LOG.info("Could not read through COPY, using JDBC: " + e);
+			rollback();
+			return null;
+		}
+	}
+
+	/**
+	 * Leaves a transaction aborted by a failed auxiliary query before the
+	 * chunk query runs
+	 */
+	private void rollback() {
+		try {
+			if (!connection.getAutoCommit()) {
+				connection.rollback();
+			}
+		} catch (SQLException ex) {
+			LOG.debug("Error while rolling back.", ex);
+		}
+	}
+
+	/**
+	 * Returns the number of rows the query is expected to return. The split's
+	 * estimate is used if available, otherwise (if enabled by
+	 * {@link DBConst#DB_PROGRESS_EXPLAIN}, as it costs a round trip per
+	 * split) the planner's estimate provided by the dialect (PostgreSQL's
+	 * EXPLAIN).
+	 */
+	protected long estimateRows(String sql, DBInputSplit split, JobConf conf) {
+		if (split.getEstimatedRows() > 0) {
+			return split.getEstimatedRows();
+		}
+		if (conf.getBoolean(DBConst.DB_PROGRESS_EXPLAIN, false)) {
+			try {
+				return dialect.explainRows(connection, sql);
+			} catch (SQLException e) {
+				LOG.info("Could not estimate number of rows: " + e);
+				rollback();
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Prepares a SQL query, if no preparer specified then returns the same
+	 * sqlQuery. If the split covers only a key range of its chunk, the range
+	 * predicate is added to the query.
 	 */
 	protected String prepareSqlQuery(String sqlQuery, DBInputSplit split,
 			JobConf conf) {
 		String preparerClass = conf.get(DBConst.DB_SQL_PREPARER);
-		if (preparerClass == null) {
-			return sqlQuery;
-		} else {
+		if (preparerClass != null) {
 			try {
 				SQLPreparer sqlPreparer = (SQLPreparer) ReflectionUtils
 						.newInstance(Class.forName(preparerClass), conf);
-				return sqlPreparer.prepare(sqlQuery, split, conf);
+				sqlQuery = sqlPreparer.prepare(sqlQuery, split, conf);
 			} catch (Exception e) {
 				throw new RuntimeException(e);
 			}
 		}
+		return addRangePredicate(sqlQuery, split);
+	}
+
+	/**
+	 * Injects the split's key range predicate into the query. The predicate
+	 * replaces {@link DBConst#SPLIT_RANGE_PLACEHOLDER} if the query contains
+	 * it; otherwise the query is wrapped in an outer SELECT (the split column
+	 * then has to be one of the query's output columns). A split reading the
+	 * whole chunk replaces the placeholder by a condition that always holds.
+	 */
+	protected String addRangePredicate(String sqlQuery, DBInputSplit split) {
+		String predicate = split.getRangePredicate();
+		if (predicate == null) {
+			return sqlQuery.replace(DBConst.SPLIT_RANGE_PLACEHOLDER, "1=1");
+		}
+		if (sqlQuery.contains(DBConst.SPLIT_RANGE_PLACEHOLDER)) {
+			return sqlQuery.replace(DBConst.SPLIT_RANGE_PLACEHOLDER, predicate);
+		}
+		String query = sqlQuery.trim();
+		while (query.endsWith(";")) {
+			query = query.substring(0, query.length() - 1).trim();
+		}
+		return "SELECT * FROM (" + query + ") AS hadoopdb_range WHERE "
+				+ predicate + ";";
 	}
 
 	/**
@@ -146,9 +621,18 @@ public abstract class AbstractDBRecordReader {
 	 * connection trials.
 	 */
 	protected Connection getConnection(DBInputSplit dbSplit) {
+		return getConnection(dbSplit, null);
+	}
+
+	/**
+	 * Connects to a database of the split's chunk, avoiding the given host
+	 * (may be null) if possible.
+	 */
+	protected Connection getConnection(DBInputSplit dbSplit,
+			DBChunkHost avoid) {
 
 		boolean connected = false;
-		DBChunkHost avoid_host = null;
+		DBChunkHost avoid_host = avoid;
 		int connect_tries = 0;
 		Connection connection = null;
 
@@ -159,12 +643,13 @@ public abstract class AbstractDBRecordReader {
 		while (!connected) {
 			if (!chunk.getLocations().contains(localHostAddr)) {
 				LOG.info("Data locality failed for " + localHostAddr);
-				chunk_host = chunk.getAnyHost(avoid_host);
+				localityMiss = true;
+				chunk_host = hostSelection.selectHost(chunk, avoid_host);
 			} else {
 				if (avoid_host != chunk.getHost(localHostAddr)) {
 					chunk_host = chunk.getHost(localHostAddr);
 				} else {
-					chunk_host = chunk.getAnyHost(avoid_host);
+					chunk_host = hostSelection.selectHost(chunk, avoid_host);
 				}
 			}
 			LOG.info("Task from " + localHostAddr + " is connecting to chunk "
@@ -172,15 +657,17 @@ public abstract class AbstractDBRecordReader {
 					+ " with db url " + chunk_host.getUrl());
 
 			try {
-				Class.forName(chunk_host.getDriver());
-				connection = DriverManager.getConnection(chunk_host.getUrl(),
-						chunk_host.getUser(), chunk_host.getPassword());
+				connection = openConnection(chunk_host);
+				connectedHost = chunk_host;
+				dialect = SQLDialect.forHost(resumeConf, chunk_host);
+				loadTracker.acquire(chunk_host);
 				connected = true;
 			} catch (Exception e) {
 				LOG.info("An error connecting to the database. See below for details.");
 				LOG.info(e);
 				if (connect_tries < MAX_CONNECTION_TRIALS) {
 					connect_tries++;
+					connectRetries++;
 					avoid_host = chunk_host;
 					chunk_host = null;
 				} else
@@ -191,19 +678,69 @@ public abstract class AbstractDBRecordReader {
 	}
 
 	/**
-	 * After query execution is complete, the database connection is closed
-	 * cleanly.
+	 * Opens a connection to a given chunk host, either by taking one from the
+	 * per-JVM {@link DBConnectionPool} or, if pooling is disabled, directly
+	 * through the driver manager.
+	 */
+	protected Connection openConnection(DBChunkHost chunk_host)
+			throws SQLException, ClassNotFoundException {
+		if (pooled) {
+			return DBConnectionPool.getInstance().getConnection(chunk_host);
+		}
+		Class.forName(chunk_host.getDriver());
+		return DriverManager.getConnection(chunk_host.getUrl(), chunk_host
+				.getUser(), chunk_host.getPassword());
+	}
+
+	/**
+	 * Returns the connection to the pool (or closes it if pooling is
+	 * disabled).
+	 */
+	protected void releaseConnection() throws SQLException {
+		loadTracker.release(connectedHost);
+		if (pooled) {
+			DBConnectionPool.getInstance().releaseConnection(connectedHost,
+					connection);
+		} else {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Closes the connection without returning it to the pool (e.g. after an
+	 * error), freeing its slot in the pool.
+	 */
+	protected void discardConnection() {
+		loadTracker.release(connectedHost);
+		if (pooled) {
+			DBConnectionPool.getInstance().discardConnection(connectedHost,
+					connection);
+		} else {
+			try {
+				connection.close();
+			} catch (SQLException e) {
+				LOG.debug("Error while closing failed connection.", e);
+			}
+		}
+	}
+
+	/**
+	 * After query execution is complete, the result set and statement are
+	 * closed and the database connection is returned to the pool (or closed
+	 * if pooling is disabled).
 	 */
 	public void close() throws IOException {
+		QueryCanceller.getInstance().unregister(this);
 		try {
 			results.close();
 			statement.close();
-			connection.close();
+			releaseConnection();
 			long endTime = System.currentTimeMillis();
 			LOG.info("DB times (ms): connection = " + (connTime - startTime)
 					+ ", query execution = " + (queryTime - connTime)
 					+ ", row retrieval  = " + (endTime - queryTime));
 			LOG.info("Rows retrieved = " + getPos());
+			publishCounters(endTime);
 
 		} catch (SQLException e) {
 			LOG.debug("Error while closing JDBC.", e);
@@ -212,6 +749,85 @@ public abstract class AbstractDBRecordReader {
 
 	}
 
+	/**
+	 * Cancels the running query (called by {@link QueryCanceller} from
+	 * another thread). If closeResults is true, the results are closed as
+	 * well, releasing the server side cursor. The error the cancellation
+	 * causes in {@link #fetchNext()} is rethrown, not resumed.
+	 */
+	public void cancelQuery(boolean closeResults) {
+		cancelled = true;
+		Statement st = statement;
+		ResultSet rs = results;
+		try {
+			if (st != null) {
+				st.cancel();
+			}
+			if (closeResults && rs != null) {
+				rs.close();
+			}
+		} catch (SQLException e) {
+			LOG.debug("Error while cancelling query.", e);
+		}
+	}
+
+	/**
+	 * Sets the reporter used to publish {@link DBCounter}s and per-host
+	 * latency histograms
+	 */
+	public void setReporter(Reporter reporter) {
+		this.reporter = reporter;
+	}
+
+	/**
+	 * Publishes the reader's statistics as counters. The time to first row is
+	 * also added to the connected host's histogram in
+	 * {@link DBConst#HOST_LATENCY_COUNTER_GROUP}.
+	 */
+	protected void publishCounters(long endTime) {
+		if (reporter == null) {
+			return;
+		}
+		long firstRow = (firstRowTime > 0 ? firstRowTime : queryTime)
+				- connTime;
+		reporter.incrCounter(DBCounter.CHUNKS_READ, 1);
+		reporter.incrCounter(DBCounter.CONNECT_MILLIS, connTime - startTime);
+		reporter.incrCounter(DBCounter.FIRST_ROW_MILLIS, firstRow);
+		reporter.incrCounter(DBCounter.RETRIEVAL_MILLIS, endTime - queryTime);
+		reporter.incrCounter(DBCounter.ROWS, pos);
+		if (countsBytesDecoded()) {
+			reporter.incrCounter(DBCounter.BYTES_DECODED, bytesDecoded);
+		}
+		reporter.incrCounter(DBCounter.CONNECT_RETRIES, connectRetries);
+		reporter.incrCounter(DBCounter.LOCALITY_MISSES, localityMiss ? 1 : 0);
+		reporter.incrCounter(DBCounter.HEDGED_READS, hedged ? 1 : 0);
+		reporter.incrCounter(DBConst.HOST_LATENCY_COUNTER_GROUP,
+				getLatencyBucket(connectedHost.getHost(), firstRow), 1);
+	}
+
+	/**
+	 * Returns true if the reader accounts for the bytes it decodes in
+	 * bytesDecoded. Readers handing rows to user DBWritables cannot measure
+	 * them and do not publish {@link DBCounter#BYTES_DECODED}.
+	 */
+	protected boolean countsBytesDecoded() {
+		return false;
+	}
+
+	/**
+	 * Returns the histogram counter name of a latency, e.g. "host &lt;=100ms"
+	 */
+	public static String getLatencyBucket(String host, long millis) {
+		for (long bound : DBConst.HOST_LATENCY_BUCKETS) {
+			if (millis <= bound) {
+				return host + " <=" + bound + "ms";
+			}
+		}
+		return host + " >"
+				+ DBConst.HOST_LATENCY_BUCKETS[DBConst.HOST_LATENCY_BUCKETS.length - 1]
+				+ "ms";
+	}
+
 	public LongWritable createKey() {
 		return new LongWritable();
 	}
@@ -225,11 +841,15 @@ public abstract class AbstractDBRecordReader {
 	}
 
 	/**
-	 * Returns a float [0,1] indicating progress (currently, progress is always
-	 * 0 as there is no easy way for progress estimation).
+	 * Returns a float [0,1] indicating progress, computed as the number of
+	 * rows retrieved so far over the estimated number of rows (0 if no
+	 * estimate is available).
 	 */
 	public float getProgress() throws IOException {
-		return 0;
+		if (estimatedRows <= 0) {
+			return 0;
+		}
+		return Math.min(1.0f, (float) pos / estimatedRows);
 	}
 
 }
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * DBWritable whose {@link DBField} annotated fields are read and written by
+ * a {@link DBWritableBinder}. Record readers reuse value objects, so column
+ * indices are resolved only once per result set; likewise the parameter
+ * positions of the output columns for {@link DBRecordWriter}.
+ */
+public abstract class AnnotatedDBWritable implements DBWritable {
+
+	private final DBWritableBinder binder = DBWritableBinder
+			.forClass(getClass());
+	private ResultSet bound;
+	private int[] indices;
+	private String[] boundColumns;
+	private int[] params;
+
+	@Override
+	public void readFields(ResultSet resultSet) throws SQLException {
+		if (resultSet != bound) {
+			indices = binder.bind(resultSet);
+			bound = resultSet;
+		}
+		binder.read(this, resultSet, indices);
+	}
+
+	/**
+	 * Writes the fields at their declared <code>@DBField(index = ...)</code>
+	 * parameter positions
+	 */
+	@Override
+	public void write(PreparedStatement statement) throws SQLException {
+		binder.write(this, statement);
+	}
+
+	/**
+	 * Writes the fields as the parameters of an INSERT into the given
+	 * columns, matching fields to columns by label
+	 */
+	public void write(PreparedStatement statement, String[] columns)
+			throws SQLException {
+		if (columns != boundColumns) {
+			params = binder.bindParameters(columns);
+			boundColumns = columns;
+		}
+		binder.write(this, statement, params);
+	}
+
+}
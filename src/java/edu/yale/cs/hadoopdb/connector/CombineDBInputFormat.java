@@ -0,0 +1,146 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reporter;
+
+/**
+ * DBInputFormat that packs chunks stored on the same host into one split, so
+ * that relations with many small chunks do not pay task startup for every
+ * chunk. Chunks are added to a host's split until it reaches a row target
+ * ({@link DBConst#DB_COMBINE_SPLIT_ROWS} or, if not set, the estimated rows
+ * of the relation divided by the requested number of map tasks) or a
+ * maximum number of chunks ({@link DBConst#DB_COMBINE_MAX_CHUNKS}).
+ * @param <T>
+ */
+public abstract class CombineDBInputFormat<T extends DBWritable> extends
+		DBInputFormat<T> {
+
+	public static final Log LOG = LogFactory.getLog(CombineDBInputFormat.class
+			.getName());
+
+	/**
+	 * Returns CombineDBRecordReader for a given split.
+	 */
+	@Override
+	public RecordReader<LongWritable, T> getRecordReader(InputSplit split,
+			JobConf job, Reporter reporter) throws IOException {
+		return new CombineDBRecordReader<T>(dbConf,
+				(CombineDBInputSplit) split, job, reporter);
+	}
+
+	/**
+	 * Creates per-chunk splits (see {@link DBInputFormat#getSplits}) and
+	 * combines them by host. Splits of replicated chunks are added to the
+	 * least filled open split among the chunk's hosts (ties, e.g. without
+	 * row estimates, go to the host with the fewest chunks so far).
+	 */
+	@Override
+	public InputSplit[] getSplits(JobConf conf, int numSplits)
+			throws IOException {
+
+		InputSplit[] chunkSplits = super.getSplits(conf, numSplits);
+
+		long totalRows = 0;
+		for (InputSplit s : chunkSplits) {
+			totalRows += ((DBInputSplit) s).getEstimatedRows();
+		}
+		int maxChunks = conf.getInt(DBConst.DB_COMBINE_MAX_CHUNKS,
+				DBConst.DEFAULT_COMBINE_MAX_CHUNKS);
+		long targetRows = conf.getLong(DBConst.DB_COMBINE_SPLIT_ROWS, 0);
+		if (targetRows <= 0 && totalRows > 0 && numSplits > 0) {
+			targetRows = totalRows / numSplits;
+		}
+		if (targetRows <= 0 && numSplits > 0) {
+			// no row estimates: balance the number of chunks
+			maxChunks = Math.min(maxChunks, Math.max(1,
+					(chunkSplits.length + numSplits - 1) / numSplits));
+		}
+
+		List<CombineDBInputSplit> result = new ArrayList<CombineDBInputSplit>();
+		Map<String, CombineDBInputSplit> open = new HashMap<String, CombineDBInputSplit>();
+		Map<String, Integer> hostChunks = new HashMap<String, Integer>();
+
+		for (InputSplit s : chunkSplits) {
+			DBInputSplit split = (DBInputSplit) s;
+			String[] locations = split.getLocations().clone();
+			Arrays.sort(locations);
+
+			String location = null;
+			long locationRows = 0;
+			int locationChunks = 0;
+			for (String l : locations) {
+				CombineDBInputSplit group = open.get(l);
+				long rows = (group == null) ? 0 : group.getEstimatedRows();
+				int chunks = hostChunks.containsKey(l) ? hostChunks.get(l) : 0;
+				if (location == null || rows < locationRows
+						|| (rows == locationRows && chunks < locationChunks)) {
+					location = l;
+					locationRows = rows;
+					locationChunks = chunks;
+				}
+			}
+			hostChunks.put(location, locationChunks + 1);
+
+			CombineDBInputSplit group = open.get(location);
+			if (group == null) {
+				group = new CombineDBInputSplit(location);
+				open.put(location, group);
+			}
+			group.addSplit(split);
+
+			if ((targetRows > 0 && group.getEstimatedRows() >= targetRows)
+					|| group.getSplits().size() >= maxChunks) {
+				result.add(group);
+				open.remove(location);
+			}
+		}
+		List<String> remaining = new ArrayList<String>(open.keySet());
+		Collections.sort(remaining);
+		for (String location : remaining) {
+			result.add(open.get(location));
+		}
+
+		Collections.sort(result, new Comparator<CombineDBInputSplit>() {
+			@Override
+			public int compare(CombineDBInputSplit s1, CombineDBInputSplit s2) {
+				long l1 = s1.getEstimatedRows();
+				long l2 = s2.getEstimatedRows();
+				return l1 > l2 ? -1 : (l1 == l2 ? 0 : 1);
+			}
+		});
+
+		LOG.info("Combined " + chunkSplits.length + " chunk split(s) into "
+				+ result.size() + " split(s)");
+		return result.toArray(new InputSplit[result.size()]);
+	}
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapred.InputSplit;
+
+/**
+ * Split combining several DBInputSplits whose chunks are stored on the same
+ * host. The chunks are read one after another by a single map task (see
+ * {@link CombineDBRecordReader}).
+ */
+public class CombineDBInputSplit implements InputSplit {
+
+	protected List<DBInputSplit> splits = new ArrayList<DBInputSplit>();
+	protected String location;
+
+	public CombineDBInputSplit() {
+	}
+
+	public CombineDBInputSplit(String location) {
+		this.location = location;
+	}
+
+	public void addSplit(DBInputSplit split) {
+		splits.add(split);
+	}
+
+	public List<DBInputSplit> getSplits() {
+		return splits;
+	}
+
+	/**
+	 * Returns the estimated number of rows of all combined splits
+	 */
+	public long getEstimatedRows() {
+		long rows = 0;
+		for (DBInputSplit split : splits) {
+			rows += split.getEstimatedRows();
+		}
+		return rows;
+	}
+
+	@Override
+	public long getLength() throws IOException {
+		long length = 0;
+		for (DBInputSplit split : splits) {
+			length += split.getLength();
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the host all combined chunks are stored on
+	 */
+	@Override
+	public String[] getLocations() throws IOException {
+		return new String[] { location };
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		location = Text.readString(in);
+		int n = WritableUtils.readVInt(in);
+		splits = new ArrayList<DBInputSplit>(n);
+		for (int i = 0; i < n; i++) {
+			DBInputSplit split = new DBInputSplit();
+			split.readFields(in);
+			splits.add(split);
+		}
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		Text.writeString(out, location);
+		WritableUtils.writeVInt(out, splits.size());
+		for (DBInputSplit split : splits) {
+			split.write(out);
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.util.ReflectionUtils;
+
+/**
+ * Reads the chunks of a {@link CombineDBInputSplit} one after another, using
+ * a {@link DBRecordReader} per chunk. Connections are returned to the
+ * {@link DBConnectionPool} after each chunk, so chunks stored in the same
+ * database share a connection. Keys are numbered consecutively across
+ * chunks.
+ * @param <T>
+ */
+public class CombineDBRecordReader<T extends DBWritable> implements
+		RecordReader<LongWritable, T> {
+
+	public static final Log LOG = LogFactory.getLog(CombineDBRecordReader.class
+			.getName());
+
+	private DBConfiguration dbConf;
+	private Class<T> valueClass;
+	private CombineDBInputSplit split;
+	private JobConf conf;
+	private Reporter reporter;
+
+	private DBRecordReader<T> current;
+	private int index = 0;
+	// rows read from chunks already closed
+	private long offset = 0;
+	private long estimatedRows;
+
+	@SuppressWarnings("unchecked")
+	public CombineDBRecordReader(DBConfiguration dbConf,
+			CombineDBInputSplit split, JobConf conf, Reporter reporter) {
+		this.dbConf = dbConf;
+		this.valueClass = dbConf.getValueClass();
+		this.split = split;
+		this.conf = conf;
+		this.reporter = reporter;
+		this.estimatedRows = split.getEstimatedRows();
+	}
+
+	/**
+	 * Closes the current chunk's reader and opens the next one. Returns false
+	 * if there are no more chunks.
+	 */
+	private boolean nextChunk() throws IOException {
+		if (current != null) {
+			offset += current.getPos();
+			current.close();
+			current = null;
+		}
+		if (index >= split.getSplits().size()) {
+			return false;
+		}
+		try {
+			current = new DBRecordReader<T>(dbConf, split.getSplits().get(
+					index++), conf);
+			current.setReporter(reporter);
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean next(LongWritable key, T value) throws IOException {
+		while (current == null || !current.next(key, value)) {
+			if (!nextChunk()) {
+				return false;
+			}
+		}
+		key.set(offset + key.get());
+		return true;
+	}
+
+	@Override
+	public LongWritable createKey() {
+		return new LongWritable();
+	}
+
+	@Override
+	public T createValue() {
+		return ReflectionUtils.newInstance(valueClass, conf);
+	}
+
+	@Override
+	public long getPos() throws IOException {
+		return offset + (current == null ? 0 : current.getPos());
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (current != null) {
+			offset += current.getPos();
+			current.close();
+			current = null;
+		}
+		LOG.info("Rows retrieved from " + index + " chunk(s) = " + offset);
+	}
+
+	/**
+	 * Returns progress based on estimated rows or, if no estimates are
+	 * available, on the number of chunks read.
+	 */
+	@Override
+	public float getProgress() throws IOException {
+		if (estimatedRows > 0) {
+			return Math.min(1.0f, (float) getPos() / estimatedRows);
+		}
+		int chunks = split.getSplits().size();
+		if (chunks == 0) {
+			return 1.0f;
+		}
+		float chunkProgress = (current == null) ? 0 : current.getProgress();
+		return Math.min(1.0f, (Math.max(0, index - 1) + chunkProgress)
+				/ chunks);
+	}
+
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapred.InputFormat;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.JobConfigurable;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reporter;
+
+/**
+ * Input format delivering rows in column batches (see
+ * {@link DBBatchRecordReader}). Splits are created as by DBInputFormat.
+ */
+public abstract class DBBatchInputFormat implements
+		InputFormat<LongWritable, DBColumnBatch>, JobConfigurable {
+
+	protected DBConfiguration dbConf;
+
+	@Override
+	public void configure(JobConf conf) {
+		dbConf = new DBConfiguration();
+	}
+
+	/**
+	 * Creates splits as {@link DBInputFormat#getSplits(JobConf, int)}
+	 */
+	@Override
+	public InputSplit[] getSplits(JobConf conf, int numSplits)
+			throws IOException {
+		return DBInputFormat.createSplits(conf, dbConf);
+	}
+
+	/**
+	 * Returns DBBatchRecordReader for a given split.
+	 */
+	@Override
+	public RecordReader<LongWritable, DBColumnBatch> getRecordReader(
+			InputSplit split, JobConf job, Reporter reporter)
+			throws IOException {
+		try {
+			DBBatchRecordReader reader = new DBBatchRecordReader(dbConf,
+					(DBInputSplit) split, job);
+			reader.setReporter(reporter);
+			return reader;
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordReader;
+
+/**
+ * Record reader returning rows in {@link DBColumnBatch}es of up to
+ * {@link DBConst#DB_BATCH_SIZE} rows. The key is the position of the batch's
+ * first row.
+ */
+public class DBBatchRecordReader extends AbstractDBRecordReader implements
+		RecordReader<LongWritable, DBColumnBatch> {
+
+	public static final Log LOG = LogFactory.getLog(DBBatchRecordReader.class
+			.getName());
+
+	private JobConf conf;
+	private DBConfiguration dbConf;
+
+	public DBBatchRecordReader(DBConfiguration dbConf, DBInputSplit split,
+			JobConf conf) throws SQLException {
+		this.dbConf = dbConf;
+		this.conf = conf;
+
+		setupDB(split, conf);
+	}
+
+	@Override
+	protected String getSqlQuery() {
+		return dbConf.getSqlQuery();
+	}
+
+	@Override
+	public DBColumnBatch createValue() {
+		return new DBColumnBatch(conf.getInt(DBConst.DB_BATCH_SIZE,
+				DBConst.DEFAULT_BATCH_SIZE));
+	}
+
+	/**
+	 * Fills the batch with the next rows of the result set.
+	 * @return false if no more rows exist.
+	 */
+	@Override
+	public boolean next(LongWritable key, DBColumnBatch value)
+			throws IOException {
+		value.clear();
+		key.set(pos);
+		try {
+			while (!value.isFull() && fetchNext()) {
+				if (pos == 0)
+					firstRowTime = System.currentTimeMillis();
+				value.readFields(results);
+				pos++;
+			}
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+		return value.size() > 0;
+	}
+
+}
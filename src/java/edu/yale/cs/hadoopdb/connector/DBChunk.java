@@ -15,30 +15,39 @@
  */
 package edu.yale.cs.hadoopdb.connector;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
 
 /**
  * For each relation chunk, this object stores connection and location
  * information in a collection of DBChunkHost identified by their location or
  * host address. This class and all included classes are serialized by
- * DBInputSplit
+ * DBInputSplit using the compact Writable encoding of this class.
  */
-public class DBChunk implements Serializable {
+public class DBChunk implements Serializable, Writable {
 
 	private static final long serialVersionUID = 2154832951481581295L;
-	private static Random R = new Random(System.currentTimeMillis());
+	static Random R = new Random(System.currentTimeMillis());
 
 	private String id;
 	private HashMap<String, DBChunkHost> locations = new HashMap<String, DBChunkHost>();
+	// estimated number of rows (0 if unknown)
+	private long sizeEstimate = 0;
 
 	public static final Log LOG = LogFactory.getLog(DBChunk.class.getName());
 
@@ -46,6 +55,21 @@ public class DBChunk implements Serializable {
 		this.id = id;
 	}
 
+	/**
+	 * Used by {@link #read(DataInput)}
+	 */
+	protected DBChunk() {
+	}
+
+	/**
+	 * Reads a chunk written by {@link #write(DataOutput)}
+	 */
+	public static DBChunk read(DataInput in) throws IOException {
+		DBChunk chunk = new DBChunk();
+		chunk.readFields(in);
+		return chunk;
+	}
+
 	public String getId() {
 		return id;
 	}
@@ -54,6 +78,17 @@ public class DBChunk implements Serializable {
 		this.id = id;
 	}
 
+	/**
+	 * Returns the estimated number of rows in the chunk or 0 if unknown
+	 */
+	public long getSizeEstimate() {
+		return sizeEstimate;
+	}
+
+	public void setSizeEstimate(long sizeEstimate) {
+		this.sizeEstimate = sizeEstimate;
+	}
+
 	public void addHost(DBChunkHost host) {
 		locations.put(host.getHost(), host);
 	}
@@ -89,16 +124,28 @@ public class DBChunk implements Serializable {
 			return getAnyHost();
 		}
 
+		List<DBChunkHost> nds = getCandidateHosts(avoid_host);
+		return nds.get(R.nextInt(nds.size()));
+	}
+
+	/**
+	 * Returns the hosts of the chunk except the given host, or all hosts if
+	 * the given host is the only one.
+	 */
+	public List<DBChunkHost> getCandidateHosts(DBChunkHost avoid_host) {
 		List<DBChunkHost> nds = new ArrayList<DBChunkHost>();
 		nds.addAll(this.locations.values());
+		if (avoid_host == null) {
+			return nds;
+		}
 		nds.remove(avoid_host);
 
 		if (nds.size() == 0) {
 			LOG.warn("Request to avoid host " + avoid_host + " unsatisfiable -"
 					+ "- only one host for chunk " + this.getId());
-			return getAnyHost();
+			nds.addAll(this.locations.values());
 		}
-		return nds.get(R.nextInt(nds.size()));
+		return nds;
 	}
 
 	public Collection<DBChunkHost> getHosts() {
@@ -109,6 +156,89 @@ public class DBChunk implements Serializable {
 		return locations.keySet();
 	}
 
+	/**
+	 * Writes the chunk id, size estimate and hosts. The strings describing
+	 * the hosts (address, url, user, password, driver) are written once into
+	 * a string table and referenced by index, since users, passwords and
+	 * drivers are usually the same for all replicas.
+	 */
+	@Override
+	public void write(DataOutput out) throws IOException {
+		Text.writeString(out, id);
+		WritableUtils.writeVLong(out, sizeEstimate);
+
+		List<String> table = new ArrayList<String>();
+		Map<String, Integer> index = new HashMap<String, Integer>();
+		int[] refs = new int[locations.size() * 5];
+		int k = 0;
+		for (DBChunkHost host : locations.values()) {
+			refs[k++] = intern(host.getHost(), table, index);
+			refs[k++] = intern(host.getUrl(), table, index);
+			refs[k++] = intern(host.getUser(), table, index);
+			refs[k++] = intern(host.getPassword(), table, index);
+			refs[k++] = intern(host.getDriver(), table, index);
+		}
+
+		WritableUtils.writeVInt(out, table.size());
+		for (String s : table) {
+			Text.writeString(out, s);
+		}
+		WritableUtils.writeVInt(out, locations.size());
+		for (int ref : refs) {
+			WritableUtils.writeVInt(out, ref);
+		}
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		id = Text.readString(in);
+		sizeEstimate = WritableUtils.readVLong(in);
+
+		String[] table = new String[WritableUtils.readVInt(in)];
+		for (int i = 0; i < table.length; i++) {
+			table[i] = Text.readString(in);
+		}
+		int hosts = WritableUtils.readVInt(in);
+		locations = new HashMap<String, DBChunkHost>();
+		for (int i = 0; i < hosts; i++) {
+			String address = lookup(table, WritableUtils.readVInt(in));
+			String url = lookup(table, WritableUtils.readVInt(in));
+			String user = lookup(table, WritableUtils.readVInt(in));
+			String password = lookup(table, WritableUtils.readVInt(in));
+			String driver = lookup(table, WritableUtils.readVInt(in));
+			addHost(new DBChunkHost(address, url, user, password, driver));
+		}
+	}
+
+	/**
+	 * Returns the string's index in the table (-1 for null), adding it if
+	 * needed.
+	 */
+	private static int intern(String s, List<String> table,
+			Map<String, Integer> index) {
+		if (s == null) {
+			return -1;
+		}
+		Integer i = index.get(s);
+		if (i == null) {
+			i = table.size();
+			table.add(s);
+			index.put(s, i);
+		}
+		return i;
+	}
+
+	private static String lookup(String[] table, int i) throws IOException {
+		if (i == -1) {
+			return null;
+		}
+		if (i < 0 || i >= table.length) {
+			throw new IOException("Invalid string reference " + i
+					+ " in serialized chunk.");
+		}
+		return table[i];
+	}
+
 	public String toString() {
 		return this.id;
 	}
@@ -0,0 +1,208 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.mapred.JobConf;
+
+import edu.yale.cs.hadoopdb.catalog.Catalog;
+
+/**
+ * Drops the chunks of a relation that cannot contain rows matching a
+ * predicate, using the partition key and scheme recorded in the catalog.
+ * For hash partitioned relations, an equality condition on the key selects
+ * one chunk. For range partitioned relations, comparisons on the key drop
+ * chunks whose bounds do not overlap them.
+ * 
+ * A predicate is a conjunction of simple conditions, e.g.
+ * {@code sourceIP = '158.112.27.3' AND visitDate >= '2000-01-15'}: a
+ * column, one of =, <, <=, >, >= and a number or a single-quoted string.
+ * Predicates that are not understood as a whole are ignored, as are
+ * conditions on other columns. Pruning is therefore conservative: it only
+ * drops chunks the job's SQL query would not return any rows from.
+ */
+public class DBChunkPruner {
+
+	public static final Log LOG = LogFactory.getLog(DBChunkPruner.class
+			.getName());
+
+	private static final Pattern CONDITION = Pattern
+			.compile("\\s*([\\w.]+)\\s*(<=|>=|=|<|>)\\s*('(?:[^']|'')*'|[-+\\w.]+)\\s*((?i:AND)\\s+|$)");
+	private static final Pattern INTEGER = Pattern.compile("-?\\d+");
+
+	/**
+	 * Condition on a column
+	 */
+	static class Condition {
+		String column;
+		String op;
+		String value;
+		boolean quoted;
+	}
+
+	/**
+	 * Returns those of the relation's chunks (all of them, in any order) that
+	 * may contain rows matching the predicate
+	 */
+	public static Collection<DBChunk> prune(JobConf job, String relation,
+			Collection<DBChunk> chunks, String predicate) {
+
+		if (predicate == null || predicate.trim().length() == 0) {
+			return chunks;
+		}
+		Catalog catalog = Catalog.getInstance(job);
+		String key = catalog.getPartitionKey(relation);
+		String scheme = catalog.getPartitionScheme(relation);
+		if (key == null || scheme == null) {
+			return chunks;
+		}
+
+		List<Condition> conditions = new ArrayList<Condition>();
+		for (Condition c : parse(predicate)) {
+			if (c.column.equalsIgnoreCase(key)) {
+				conditions.add(c);
+			}
+		}
+		if (conditions.isEmpty()) {
+			return chunks;
+		}
+
+		List<DBChunk> pruned = new ArrayList<DBChunk>(chunks.size());
+		if (Catalog.HASH_PARTITIONING.equals(scheme)) {
+			int chunksPerNode = catalog.getChunksPerNode(relation);
+			if (chunksPerNode == 0) {
+				LOG.warn("Hash layout of relation " + relation
+						+ " is unknown (no chunksPerNode) - no pruning");
+				return chunks;
+			}
+			int nChunks = catalog.getChunkCount(relation);
+			// chunk of each key value (-1 if no rows can match)
+			int chunk = -2;
+			for (Condition c : conditions) {
+				if (c.op.equals("=") && (c.quoted || INTEGER.matcher(c.value).matches())) {
+					int partition = Catalog.getHashChunk(c.value, nChunks,
+							chunksPerNode);
+					chunk = (chunk == -2 || chunk == partition) ? partition : -1;
+				}
+			}
+			if (chunk == -2) {
+				return chunks;
+			}
+			for (DBChunk c : chunks) {
+				if (c.getId().equals(String.valueOf(chunk))) {
+					pruned.add(c);
+				}
+			}
+		} else if (Catalog.RANGE_PARTITIONING.equals(scheme)) {
+			for (DBChunk chunk : chunks) {
+				String[] bounds = catalog.getChunkBounds(relation, chunk.getId());
+				if (mayMatch(conditions, bounds[0], bounds[1])) {
+					pruned.add(chunk);
+				}
+			}
+		} else {
+			LOG.warn("Unknown partitioning scheme of relation " + relation
+					+ ": " + scheme);
+			return chunks;
+		}
+
+		LOG.info("Relation " + relation + ": " + pruned.size() + " of "
+				+ chunks.size() + " chunk(s) match " + predicate);
+		return pruned;
+	}
+
+	/**
+	 * Returns true if values between the bounds (inclusive, null is
+	 * unbounded) may satisfy all conditions
+	 */
+	private static boolean mayMatch(List<Condition> conditions, String lower,
+			String upper) {
+		for (Condition c : conditions) {
+			// value compared with the bounds
+			int l = lower == null ? 1 : compare(c, lower);
+			int u = upper == null ? -1 : compare(c, upper);
+
+			boolean match;
+			if (c.op.equals("=")) {
+				match = l >= 0 && u <= 0;
+			} else if (c.op.equals("<")) {
+				match = l > 0;
+			} else if (c.op.equals("<=")) {
+				match = l >= 0;
+			} else if (c.op.equals(">")) {
+				match = u < 0;
+			} else {
+				match = u <= 0;
+			}
+			if (!match) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compares a condition's value with a bound (numerically if both are
+	 * numbers, quoted or not)
+	 */
+	private static int compare(Condition c, String bound) {
+		try {
+			return new BigDecimal(c.value.trim()).compareTo(new BigDecimal(
+					bound.trim()));
+		} catch (NumberFormatException e) {
+			// compare as strings
+		}
+		return c.value.compareTo(bound);
+	}
+
+	/**
+	 * Parses the conditions of a predicate (none if the predicate is not a
+	 * conjunction of simple conditions)
+	 */
+	static List<Condition> parse(String predicate) {
+		List<Condition> conditions = new ArrayList<Condition>();
+		Matcher m = CONDITION.matcher(predicate);
+		int pos = 0;
+		while (pos < predicate.length()) {
+			m.region(pos, predicate.length());
+			if (!m.lookingAt()) {
+				conditions.clear();
+				break;
+			}
+			Condition c = new Condition();
+			c.column = m.group(1).substring(m.group(1).lastIndexOf('.') + 1);
+			c.op = m.group(2);
+			c.value = m.group(3);
+			if (c.value.startsWith("'")) {
+				c.quoted = true;
+				c.value = c.value.substring(1, c.value.length() - 1).replace(
+						"''", "'");
+			}
+			conditions.add(c);
+			pos = m.end();
+		}
+		return conditions;
+	}
+
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.mapred.JobConf;
+
+/**
+ * Splits a single chunk into several key ranges so that one chunk can be
+ * read by more than one map task. The range boundaries are computed from the
+ * minimum and maximum value of an integer split column in the chunk's
+ * database. Each range is later turned into a predicate by
+ * {@link DBInputSplit#getRangePredicate()}.
+ */
+public class DBChunkSplitter {
+
+	public static final Log LOG = LogFactory.getLog(DBChunkSplitter.class
+			.getName());
+
+	/**
+	 * Key range [start, end) of a split column. The last range of a chunk
+	 * includes its end and the first range also includes NULL values.
+	 */
+	public static class Range {
+		private long start;
+		private long end;
+		private boolean first;
+		private boolean last;
+
+		public Range(long start, long end, boolean first, boolean last) {
+			this.start = start;
+			this.end = end;
+			this.first = first;
+			this.last = last;
+		}
+
+		public long getStart() {
+			return start;
+		}
+
+		public long getEnd() {
+			return end;
+		}
+
+		public boolean isFirst() {
+			return first;
+		}
+
+		public boolean isLast() {
+			return last;
+		}
+	}
+
+	/**
+	 * Returns true if sub-splitting of chunks is configured for the job
+	 */
+	public static boolean isEnabled(JobConf conf) {
+		return conf.get(DBConst.DB_SPLIT_COLUMN) != null
+				&& conf.getInt(DBConst.DB_SPLITS_PER_CHUNK, 1) > 1;
+	}
+
+	/**
+	 * Computes key ranges for a given chunk of a relation. Returns an empty
+	 * list if the chunk cannot be split (empty chunk, non-integer column or a
+	 * database error) in which case the caller should create a single split
+	 * for the whole chunk.
+	 */
+	public static List<Range> getRanges(JobConf conf, DBChunk chunk,
+			String relation) {
+
+		List<Range> ranges = new ArrayList<Range>();
+		String column = conf.get(DBConst.DB_SPLIT_COLUMN);
+		int n = conf.getInt(DBConst.DB_SPLITS_PER_CHUNK, 1);
+
+		long[] bounds;
+		try {
+			bounds = getBounds(conf, chunk, relation, column);
+		} catch (Exception e) {
+			LOG.warn("Could not retrieve bounds of " + column + " for chunk "
+					+ chunk.getId() + ", chunk will not be split: " + e);
+			return ranges;
+		}
+		if (bounds == null) {
+			return ranges;
+		}
+
+		long min = bounds[0];
+		long max = bounds[1];
+		double span = (double) max - (double) min;
+
+		long start = min;
+		for (int i = 1; i <= n && start <= max; i++) {
+			long end = (i == n) ? max : min + (long) (span * i / n);
+			if (end <= start && i < n) {
+				continue;
+			}
+			ranges.add(new Range(start, end, ranges.isEmpty(), end >= max));
+			start = end;
+		}
+
+		LOG.debug("Chunk " + chunk.getId() + " split into " + ranges.size()
+				+ " ranges of " + column + " in [" + min + ", " + max + "]");
+		return ranges;
+	}
+
+	/**
+	 * Returns {min, max} of the column within the chunk or null if the chunk
+	 * has no non-null values.
+	 */
+	private static long[] getBounds(JobConf conf, DBChunk chunk,
+			String relation, String column) throws SQLException,
+			ClassNotFoundException {
+
+		DBChunkHost host = chunk.getAnyHost();
+		Connection connection = DBConnectionPool.openConnection(conf, host);
+
+		Statement statement = null;
+		ResultSet rs = null;
+		try {
+			statement = connection.createStatement();
+			rs = statement.executeQuery("SELECT MIN(" + column
+					+ "), MAX(" + column + ") FROM " + relation);
+			if (!rs.next()) {
+				return null;
+			}
+			long min = rs.getLong(1);
+			if (rs.wasNull()) {
+				return null;
+			}
+			long max = rs.getLong(2);
+			return new long[] { min, max };
+		} finally {
+			if (rs != null) {
+				rs.close();
+			}
+			if (statement != null) {
+				statement.close();
+			}
+			DBConnectionPool.closeConnection(conf, host, connection);
+		}
+	}
+
+}
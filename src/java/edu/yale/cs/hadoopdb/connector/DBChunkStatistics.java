@@ -0,0 +1,110 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.mapred.JobConf;
+
+/**
+ * Provides row count estimates for chunks. Estimates come from the catalog
+ * (optional size attribute of a partition) or, if enabled with
+ * {@link DBConst#DB_SPLIT_STATISTICS}, from cheap statistics queries against
+ * the chunk's database: the planner's row estimate for the job's SQL query
+ * or table statistics, as provided by the chunk's {@link SQLDialect}.
+ */
+public class DBChunkStatistics {
+
+	public static final Log LOG = LogFactory.getLog(DBChunkStatistics.class
+			.getName());
+
+	/**
+	 * Orders splits so that the largest ones are scheduled first
+	 */
+	private static final Comparator<DBInputSplit> LARGEST_FIRST = new Comparator<DBInputSplit>() {
+		@Override
+		public int compare(DBInputSplit s1, DBInputSplit s2) {
+			long l1 = s1.getEstimatedRows();
+			long l2 = s2.getEstimatedRows();
+			return l1 > l2 ? -1 : (l1 == l2 ? 0 : 1);
+		}
+	};
+
+	/**
+	 * Sorts splits by estimated size, largest first.
+	 */
+	public static void sortLargestFirst(List<? extends DBInputSplit> splits) {
+		Collections.sort(splits, LARGEST_FIRST);
+	}
+
+	/**
+	 * Returns the estimated number of rows a query returns from a given chunk
+	 * or 0 if no estimate is available.
+	 *
+	 * @param sqlQuery
+	 *            query executed against the chunk (may be null, in which case
+	 *            table statistics are used)
+	 */
+	public static long estimateRows(JobConf conf, DBChunk chunk,
+			String relation, String sqlQuery) {
+
+		if (chunk.getSizeEstimate() > 0) {
+			return chunk.getSizeEstimate();
+		}
+		if (!conf.getBoolean(DBConst.DB_SPLIT_STATISTICS, false)) {
+			return 0;
+		}
+
+		DBChunkHost host = chunk.getAnyHost();
+		try {
+			Connection connection = DBConnectionPool.openConnection(conf, host);
+			try {
+				long estimate = estimateRows(connection, SQLDialect.forHost(
+						conf, host), relation, sqlQuery);
+				LOG.debug("Estimated rows for chunk " + chunk.getId() + ": "
+						+ estimate);
+				return estimate;
+			} finally {
+				DBConnectionPool.closeConnection(conf, host, connection);
+			}
+		} catch (Exception e) {
+			LOG.warn("Could not estimate size of chunk " + chunk.getId()
+					+ ": " + e);
+			return 0;
+		}
+	}
+
+	private static long estimateRows(Connection connection, SQLDialect dialect,
+			String relation, String sqlQuery) throws SQLException {
+
+		if (sqlQuery != null) {
+			// the whole chunk is estimated, so any key range matches
+			long estimate = dialect.explainRows(connection, sqlQuery.replace(
+					DBConst.SPLIT_RANGE_PLACEHOLDER, "1=1"));
+			if (estimate > 0) {
+				return estimate;
+			}
+		}
+		return dialect.tableRows(connection, relation);
+	}
+
+}
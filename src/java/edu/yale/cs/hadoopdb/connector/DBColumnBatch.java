@@ -0,0 +1,275 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * Reusable columnar batch of rows read by {@link DBBatchRecordReader}. Each
+ * column is stored in a primitive array (int, long or double for numeric
+ * columns) or an array of objects (String for character columns, the
+ * JDBC object otherwise), together with a bitmap of NULL values. Column
+ * types are derived from the result set meta data when the first row is
+ * added. Rows are added with {@link #readFields(ResultSet)}.
+ * 
+ * Typical use in a mapper:
+ * 
+ * <pre>
+ * double[] revenue = batch.getDoubleColumn(1);
+ * for (int row = 0; row &lt; batch.size(); row++) {
+ * 	if (!batch.isNull(1, row)) {
+ * 		sum += revenue[row];
+ * 	}
+ * }
+ * </pre>
+ */
+public class DBColumnBatch {
+
+	public static final int INT = 0;
+	public static final int LONG = 1;
+	public static final int DOUBLE = 2;
+	public static final int STRING = 3;
+	public static final int OBJECT = 4;
+
+	private int capacity;
+	private int size = 0;
+
+	private ResultSet bound;
+	private String[] labels;
+	private int[] types;
+	private Object[] columns;
+	private long[][] nulls;
+
+	public DBColumnBatch() {
+		this(DBConst.DEFAULT_BATCH_SIZE);
+	}
+
+	public DBColumnBatch(int capacity) {
+		this.capacity = Math.max(1, capacity);
+	}
+
+	/**
+	 * Derives column types from the result set (numeric values of DECIMAL
+	 * and NUMERIC columns are kept as BigDecimal objects)
+	 */
+	private void bind(ResultSet rs) throws SQLException {
+		ResultSetMetaData metaData = rs.getMetaData();
+		int cols = metaData.getColumnCount();
+		if (types != null && types.length == cols) {
+			// same query (e.g. resumed on another replica)
+			bound = rs;
+			return;
+		}
+		labels = new String[cols];
+		types = new int[cols];
+		columns = new Object[cols];
+		nulls = new long[cols][(capacity + 63) / 64];
+		for (int i = 0; i < cols; i++) {
+			labels[i] = metaData.getColumnLabel(i + 1);
+			switch (metaData.getColumnType(i + 1)) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+				types[i] = INT;
+				columns[i] = new int[capacity];
+				break;
+			case Types.BIGINT:
+				types[i] = LONG;
+				columns[i] = new long[capacity];
+				break;
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				types[i] = DOUBLE;
+				columns[i] = new double[capacity];
+				break;
+			case Types.CHAR:
+			case Types.VARCHAR:
+			case Types.LONGVARCHAR:
+				types[i] = STRING;
+				columns[i] = new String[capacity];
+				break;
+			default:
+				types[i] = OBJECT;
+				columns[i] = new Object[capacity];
+			}
+		}
+		bound = rs;
+	}
+
+	/**
+	 * Appends the current row of the result set to the batch
+	 */
+	public void readFields(ResultSet rs) throws SQLException {
+		if (rs != bound) {
+			bind(rs);
+		}
+		if (size == capacity) {
+			throw new IllegalStateException("Batch is full");
+		}
+		int row = size;
+		for (int i = 0; i < types.length; i++) {
+			int c = i + 1;
+			switch (types[i]) {
+			case INT:
+				((int[]) columns[i])[row] = rs.getInt(c);
+				break;
+			case LONG:
+				((long[]) columns[i])[row] = rs.getLong(c);
+				break;
+			case DOUBLE:
+				((double[]) columns[i])[row] = rs.getDouble(c);
+				break;
+			case STRING:
+				((String[]) columns[i])[row] = rs.getString(c);
+				break;
+			default:
+				((Object[]) columns[i])[row] = rs.getObject(c);
+			}
+			if (rs.wasNull()) {
+				nulls[i][row >> 6] |= 1L << row;
+			}
+		}
+		size++;
+	}
+
+	/**
+	 * Empties the batch (column arrays are reused)
+	 */
+	public void clear() {
+		if (nulls != null) {
+			int words = (size + 63) / 64;
+			for (long[] n : nulls) {
+				Arrays.fill(n, 0, words, 0L);
+			}
+			for (int i = 0; i < types.length; i++) {
+				if (types[i] == STRING || types[i] == OBJECT) {
+					Arrays.fill((Object[]) columns[i], 0, size, null);
+				}
+			}
+		}
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public boolean isFull() {
+		return size == capacity;
+	}
+
+	/**
+	 * Returns the number of columns (0 before the first row was added)
+	 */
+	public int getColumnCount() {
+		return types == null ? 0 : types.length;
+	}
+
+	public String getColumnLabel(int column) {
+		return labels[column];
+	}
+
+	/**
+	 * Returns the (0-based) index of a column by label (case insensitive)
+	 * or -1
+	 */
+	public int getColumnIndex(String label) {
+		for (int i = 0; labels != null && i < labels.length; i++) {
+			if (labels[i].equalsIgnoreCase(label)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the storage type of a column (INT, LONG, DOUBLE, STRING or
+	 * OBJECT)
+	 */
+	public int getColumnType(int column) {
+		return types[column];
+	}
+
+	public boolean isNull(int column, int row) {
+		return (nulls[column][row >> 6] & (1L << row)) != 0;
+	}
+
+	/**
+	 * Returns true if the column contains NULL values in this batch
+	 */
+	public boolean hasNulls(int column) {
+		long[] n = nulls[column];
+		for (int i = 0; i < (size + 63) / 64; i++) {
+			if (n[i] != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the values of an INT column (valid up to size(); NULLs are 0)
+	 */
+	public int[] getIntColumn(int column) {
+		return (int[]) getColumn(column, INT);
+	}
+
+	/**
+	 * Returns the values of a LONG column (valid up to size(); NULLs are 0)
+	 */
+	public long[] getLongColumn(int column) {
+		return (long[]) getColumn(column, LONG);
+	}
+
+	/**
+	 * Returns the values of a DOUBLE column (valid up to size(); NULLs are 0)
+	 */
+	public double[] getDoubleColumn(int column) {
+		return (double[]) getColumn(column, DOUBLE);
+	}
+
+	/**
+	 * Returns the values of a STRING column (valid up to size())
+	 */
+	public String[] getStringColumn(int column) {
+		return (String[]) getColumn(column, STRING);
+	}
+
+	/**
+	 * Returns the values of an OBJECT column (valid up to size())
+	 */
+	public Object[] getObjectColumn(int column) {
+		return (Object[]) getColumn(column, OBJECT);
+	}
+
+	private Object getColumn(int column, int type) {
+		if (types[column] != type) {
+			throw new IllegalArgumentException("Column " + labels[column]
+					+ " has type " + types[column] + ", not " + type);
+		}
+		return columns[column];
+	}
+
+}
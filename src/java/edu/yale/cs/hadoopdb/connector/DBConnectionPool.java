@@ -0,0 +1,440 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.mapred.JobConf;
+
+/**
+ * Per-JVM pool of JDBC connections to chunk databases. Connections are keyed
+ * by (url, user, driver) of a {@link DBChunkHost}, so that consecutive splits
+ * read by the same task JVM (e.g. with JVM reuse enabled) do not pay a full
+ * connection setup for every chunk. Idle connections are validated before
+ * being handed out, evicted after a configurable idle timeout and capped per
+ * host. The number of open connections (idle or in use) per host is capped
+ * as well: callers wait for a connection to be released, up to a
+ * configurable time.
+ */
+public class DBConnectionPool {
+
+	public static final Log LOG = LogFactory.getLog(DBConnectionPool.class
+			.getName());
+
+	private static DBConnectionPool singleton;
+
+	public static synchronized DBConnectionPool getInstance() {
+		if (singleton == null)
+			singleton = new DBConnectionPool();
+		return singleton;
+	}
+
+	/**
+	 * Idle connection together with the time it was returned to the pool
+	 */
+	private static class IdleConnection {
+		private Connection connection;
+		private long releaseTime;
+
+		public IdleConnection(Connection connection, long releaseTime) {
+			this.connection = connection;
+			this.releaseTime = releaseTime;
+		}
+	}
+
+	private Map<String, LinkedList<IdleConnection>> idle = new HashMap<String, LinkedList<IdleConnection>>();
+	// connections handed out (connections closed by their users are
+	// dropped lazily, see purgeClosed)
+	private Map<String, Set<Connection>> active = new HashMap<String, Set<Connection>>();
+	// connections being opened
+	private Map<String, Integer> pending = new HashMap<String, Integer>();
+	private Set<String> loadedDrivers = new HashSet<String>();
+
+	private int maxIdlePerHost = DBConst.DEFAULT_POOL_MAX_IDLE;
+	private int maxActivePerHost = DBConst.DEFAULT_POOL_MAX_ACTIVE;
+	private long maxWait = DBConst.DEFAULT_POOL_MAX_WAIT;
+	private long idleTimeout = DBConst.DEFAULT_POOL_IDLE_TIMEOUT;
+	// null to use the validation query of the host's SQL dialect
+	private String validationQuery;
+
+	private Timer evictor;
+
+	private DBConnectionPool() {
+	}
+
+	/**
+	 * Reads pool settings from the job configuration. Settings apply to all
+	 * connections handed out or released afterwards.
+	 */
+	public synchronized void configure(JobConf conf) {
+		maxIdlePerHost = conf.getInt(DBConst.DB_CONNECTION_POOL_MAX_IDLE,
+				DBConst.DEFAULT_POOL_MAX_IDLE);
+		maxActivePerHost = conf.getInt(DBConst.DB_CONNECTION_POOL_MAX_ACTIVE,
+				DBConst.DEFAULT_POOL_MAX_ACTIVE);
+		maxWait = conf.getLong(DBConst.DB_CONNECTION_POOL_MAX_WAIT,
+				DBConst.DEFAULT_POOL_MAX_WAIT);
+		idleTimeout = conf.getLong(DBConst.DB_CONNECTION_POOL_IDLE_TIMEOUT,
+				DBConst.DEFAULT_POOL_IDLE_TIMEOUT);
+		validationQuery = conf.get(DBConst.DB_CONNECTION_POOL_VALIDATION_QUERY);
+	}
+
+	/**
+	 * Pool key of a chunk host. Chunks stored in the same database share
+	 * connections.
+	 */
+	private static String getKey(DBChunkHost host) {
+		return host.getUrl() + "|" + host.getUser() + "|" + host.getDriver();
+	}
+
+	/**
+	 * Returns a valid idle connection for the given host or opens a new one if
+	 * none is available. If the host's limit of open connections has been
+	 * reached, waits for a connection to be released and fails after the
+	 * configured maximum wait.
+	 */
+	public Connection getConnection(DBChunkHost host) throws SQLException,
+			ClassNotFoundException {
+
+		String key = getKey(host);
+		long deadline = System.currentTimeMillis() + maxWait;
+		while (true) {
+			IdleConnection candidate = poll(key);
+			if (candidate != null) {
+				if (isValid(host, candidate.connection)) {
+					LOG.debug("Reusing pooled connection to " + host.getUrl());
+					return candidate.connection;
+				}
+				LOG.info("Discarding invalid pooled connection to "
+						+ host.getUrl());
+				discard(key, candidate.connection);
+			} else if (reserve(key, host, deadline)) {
+				break;
+			}
+		}
+
+		Connection connection = null;
+		try {
+			loadDriver(host.getDriver());
+			connection = DriverManager.getConnection(host.getUrl(), host
+					.getUser(), host.getPassword());
+			return connection;
+		} finally {
+			synchronized (this) {
+				pending.put(key, pending.get(key) - 1);
+				if (connection != null) {
+					getActive(key).add(connection);
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Reserves the opening of a new connection to a host. Returns false
+	 * (after waiting for a released connection, if the host's limit has been
+	 * reached) if an idle connection should be taken instead.
+	 */
+	private synchronized boolean reserve(String key, DBChunkHost host,
+			long deadline) throws SQLException {
+
+		LinkedList<IdleConnection> list = idle.get(key);
+		if (list != null && !list.isEmpty()) {
+			return false;
+		}
+		purgeClosed(key);
+		Integer p = pending.get(key);
+		int open = getActive(key).size() + (p == null ? 0 : p);
+		if (maxActivePerHost <= 0 || open < maxActivePerHost) {
+			pending.put(key, (p == null ? 0 : p) + 1);
+			return true;
+		}
+		long wait = deadline - System.currentTimeMillis();
+		if (wait <= 0) {
+			throw new SQLException("No connection to " + host.getUrl()
+					+ " released within " + maxWait + " ms (" + open
+					+ " connections open)");
+		}
+		try {
+			// connections closed by their users do not notify, so wake up
+			// periodically
+			wait(Math.min(wait, 1000));
+		} catch (InterruptedException e) {
+			throw new SQLException("Interrupted while waiting for a connection to "
+					+ host.getUrl());
+		}
+		return false;
+	}
+
+	private Set<Connection> getActive(String key) {
+		Set<Connection> set = active.get(key);
+		if (set == null) {
+			set = new HashSet<Connection>();
+			active.put(key, set);
+		}
+		return set;
+	}
+
+	/**
+	 * Drops connections that were closed instead of released from the
+	 * connections handed out for a key
+	 */
+	private void purgeClosed(String key) {
+		for (Iterator<Connection> it = getActive(key).iterator(); it.hasNext();) {
+			try {
+				if (it.next().isClosed()) {
+					it.remove();
+				}
+			} catch (SQLException e) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Closes a connection that was handed out and frees its slot
+	 */
+	private void discard(String key, Connection connection) {
+		closeQuietly(connection);
+		synchronized (this) {
+			getActive(key).remove(connection);
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Closes a connection handed out by the pool that must not be reused
+	 * (e.g. after an error) and frees its slot. Connections opened outside
+	 * the pool are just closed.
+	 */
+	public void discardConnection(DBChunkHost host, Connection connection) {
+		if (connection != null) {
+			discard(getKey(host), connection);
+		}
+	}
+
+	/**
+	 * Returns a connection to the pool. Any open transaction is rolled back.
+	 * The connection is closed if it is broken or the per host limit of idle
+	 * connections has been reached.
+	 */
+	public void releaseConnection(DBChunkHost host, Connection connection) {
+
+		if (connection == null)
+			return;
+
+		String key = getKey(host);
+		try {
+			if (connection.isClosed()) {
+				discard(key, connection);
+				return;
+			}
+			if (!connection.getAutoCommit()) {
+				connection.rollback();
+			}
+		} catch (SQLException e) {
+			LOG.info("Closing connection that could not be reset: " + e);
+			discard(key, connection);
+			return;
+		}
+
+		synchronized (this) {
+			getActive(key).remove(connection);
+			notifyAll();
+			LinkedList<IdleConnection> list = idle.get(key);
+			if (list == null) {
+				list = new LinkedList<IdleConnection>();
+				idle.put(key, list);
+			}
+			if (list.size() < maxIdlePerHost) {
+				list.addFirst(new IdleConnection(connection, System
+						.currentTimeMillis()));
+				startEvictor();
+				return;
+			}
+		}
+		closeQuietly(connection);
+	}
+
+	/**
+	 * Opens a connection to a chunk host outside of a record reader (e.g.
+	 * while computing splits), honoring the job's pooling setting.
+	 */
+	public static Connection openConnection(JobConf conf, DBChunkHost host)
+			throws SQLException, ClassNotFoundException {
+		if (conf.getBoolean(DBConst.DB_CONNECTION_POOL, true)) {
+			DBConnectionPool pool = getInstance();
+			pool.configure(conf);
+			return pool.getConnection(host);
+		}
+		Class.forName(host.getDriver());
+		return DriverManager.getConnection(host.getUrl(), host.getUser(), host
+				.getPassword());
+	}
+
+	/**
+	 * Counterpart of {@link #openConnection(JobConf, DBChunkHost)}
+	 */
+	public static void closeConnection(JobConf conf, DBChunkHost host,
+			Connection connection) throws SQLException {
+		if (conf.getBoolean(DBConst.DB_CONNECTION_POOL, true)) {
+			getInstance().releaseConnection(host, connection);
+		} else {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Counterpart of {@link #openConnection(JobConf, DBChunkHost)} for
+	 * connections that must not be reused
+	 */
+	public static void discardConnection(JobConf conf, DBChunkHost host,
+			Connection connection) {
+		if (conf.getBoolean(DBConst.DB_CONNECTION_POOL, true)) {
+			getInstance().discardConnection(host, connection);
+		} else if (connection != null) {
+			closeQuietly(connection);
+		}
+	}
+
+	/**
+	 * Closes all connections that have been idle longer than the idle timeout.
+	 */
+	public void evictIdle() {
+		long now = System.currentTimeMillis();
+		LinkedList<Connection> expired = new LinkedList<Connection>();
+
+		synchronized (this) {
+			for (LinkedList<IdleConnection> list : idle.values()) {
+				Iterator<IdleConnection> it = list.iterator();
+				while (it.hasNext()) {
+					IdleConnection ic = it.next();
+					if (now - ic.releaseTime > idleTimeout) {
+						expired.add(ic.connection);
+						it.remove();
+					}
+				}
+			}
+		}
+
+		for (Connection c : expired) {
+			closeQuietly(c);
+		}
+		if (!expired.isEmpty()) {
+			LOG.debug("Evicted " + expired.size() + " idle connection(s)");
+		}
+	}
+
+	/**
+	 * Closes all idle connections.
+	 */
+	public void closeAll() {
+		LinkedList<Connection> all = new LinkedList<Connection>();
+		synchronized (this) {
+			for (LinkedList<IdleConnection> list : idle.values()) {
+				for (IdleConnection ic : list) {
+					all.add(ic.connection);
+				}
+			}
+			idle.clear();
+		}
+		for (Connection c : all) {
+			closeQuietly(c);
+		}
+	}
+
+	/**
+	 * Takes the most recently released connection for a given key
+	 */
+	private synchronized IdleConnection poll(String key) {
+		LinkedList<IdleConnection> list = idle.get(key);
+		if (list == null || list.isEmpty()) {
+			return null;
+		}
+		IdleConnection ic = list.removeFirst();
+		getActive(key).add(ic.connection);
+		return ic;
+	}
+
+	private boolean isValid(DBChunkHost host, Connection connection) {
+		Statement st = null;
+		try {
+			if (connection.isClosed()) {
+				return false;
+			}
+			st = connection.createStatement();
+			st.execute(validationQuery != null ? validationQuery : SQLDialect
+					.forDriver(host.getDriver()).getValidationQuery());
+			return true;
+		} catch (SQLException e) {
+			return false;
+		} finally {
+			if (st != null) {
+				try {
+					st.close();
+				} catch (SQLException e) {
+					LOG.debug("Error while closing validation statement.", e);
+				}
+			}
+		}
+	}
+
+	private synchronized void loadDriver(String driver)
+			throws ClassNotFoundException {
+		if (!loadedDrivers.contains(driver)) {
+			Class.forName(driver);
+			loadedDrivers.add(driver);
+		}
+	}
+
+	/**
+	 * Starts a daemon thread that periodically evicts idle connections (so
+	 * that reused JVMs do not hold database backends forever).
+	 */
+	private synchronized void startEvictor() {
+		if (evictor != null)
+			return;
+		long period = Math.max(1000, idleTimeout / 2);
+		evictor = new Timer("HadoopDB connection pool evictor", true);
+		evictor.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				evictIdle();
+			}
+		}, period, period);
+	}
+
+	private static void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			LOG.debug("Error while closing JDBC connection.", e);
+		}
+	}
+
+}
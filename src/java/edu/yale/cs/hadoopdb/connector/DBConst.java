@@ -27,15 +27,145 @@ public interface DBConst {
 	public static final String DB_CONFIG_FILE = "hadoopdb.config.file";
 	public static final String DB_REPLICATION = "hadoopdb.config.replication";
 	public static final String DB_SQL_PREPARER = "hadoopdb.sql.preparer";
+	public static final String DB_SQL_DIALECT = "hadoopdb.sql.dialect";
+	public static final String DB_SMS_BINARY_ROWS = "hadoopdb.sms.binary.rows";
+	public static final String DB_CONNECTION_POOL = "hadoopdb.connection.pool";
+	public static final String DB_CONNECTION_POOL_MAX_IDLE = "hadoopdb.connection.pool.max.idle";
+	public static final String DB_CONNECTION_POOL_MAX_ACTIVE = "hadoopdb.connection.pool.max.active";
+	public static final String DB_CONNECTION_POOL_MAX_WAIT = "hadoopdb.connection.pool.max.wait";
+	public static final String DB_CONNECTION_POOL_IDLE_TIMEOUT = "hadoopdb.connection.pool.idle.timeout";
+	public static final String DB_CONNECTION_POOL_VALIDATION_QUERY = "hadoopdb.connection.pool.validation.query";
+	public static final String DB_CHUNK_PREDICATE = "hadoopdb.chunk.predicate";
+	public static final String DB_SPLIT_COLUMN = "hadoopdb.split.column";
+	public static final String DB_SPLITS_PER_CHUNK = "hadoopdb.splits.per.chunk";
+	public static final String DB_SPLIT_STATISTICS = "hadoopdb.split.statistics";
+	public static final String DB_PROGRESS_EXPLAIN = "hadoopdb.progress.explain";
+	public static final String DB_PREFETCH = "hadoopdb.prefetch";
+	public static final String DB_PREFETCH_BATCH_SIZE = "hadoopdb.prefetch.batch.size";
+	public static final String DB_PREFETCH_CAPACITY = "hadoopdb.prefetch.capacity";
+	public static final String DB_COPY = "hadoopdb.copy";
+	public static final String DB_HEDGE = "hadoopdb.hedge";
+	public static final String DB_HEDGE_THRESHOLD = "hadoopdb.hedge.threshold";
+	public static final String DB_HOST_SELECTION_POLICY = "hadoopdb.host.selection.policy";
+	public static final String DB_HOST_LOAD_DIR = "hadoopdb.host.load.dir";
+	public static final String DB_COMBINE_SPLITS = "hadoopdb.combine.splits";
+	public static final String DB_COMBINE_SPLIT_ROWS = "hadoopdb.combine.split.rows";
+	public static final String DB_COMBINE_MAX_CHUNKS = "hadoopdb.combine.max.chunks";
+	/**
+	 * Comma-separated columns of the query result that uniquely identify a
+	 * row and are never NULL (e.g. the primary key). Setting it makes every
+	 * chunk scan ORDER BY these columns, so that a failed scan can continue
+	 * after the last returned key. If the reader sees a duplicate or NULL
+	 * key, it does not resume and the task fails instead.
+	 */
+	public static final String DB_RESUME_KEY = "hadoopdb.resume.key";
+	public static final String DB_RESUME_MAX_ATTEMPTS = "hadoopdb.resume.max.attempts";
+	public static final String DB_OUTPUT_RELATION = "hadoopdb.output.relation";
+	public static final String DB_OUTPUT_SCHEMA = "hadoopdb.output.schema";
+	public static final String DB_OUTPUT_PARTITION_FIELD = "hadoopdb.output.partition.field";
+	public static final String DB_OUTPUT_BATCH_SIZE = "hadoopdb.output.batch.size";
+	public static final String DB_CANCEL_IDLE_TIMEOUT = "hadoopdb.cancel.idle.timeout";
+	public static final String DB_BATCH = "hadoopdb.batch";
+	public static final String DB_BATCH_SIZE = "hadoopdb.batch.size";
+	public static final String DB_SEMIJOIN = "hadoopdb.semijoin";
+	public static final String DB_SEMIJOIN_IN_LIST_SIZE = "hadoopdb.semijoin.in.list.size";
+	public static final String DB_SEMIJOIN_MAX_KEYS = "hadoopdb.semijoin.max.keys";
 	
 	/**
-	 * Required for large datasets in MySQL
+	 * Required for large datasets in MySQL (applied by MySQLDialect)
 	 */
 	public static final int SQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
 	/**
 	 * Limits the number of rows fetched from a database at once
 	 */
 	public static final int SQL_DEFAULT_FETCH_SIZE = 1000;
+	/**
+	 * Maximum number of idle connections kept per chunk host by the pool
+	 */
+	public static final int DEFAULT_POOL_MAX_IDLE = 4;
+	/**
+	 * Maximum number of open connections (idle or in use) per chunk host
+	 * (0 for no limit)
+	 */
+	public static final int DEFAULT_POOL_MAX_ACTIVE = 8;
+	/**
+	 * Time (in ms) to wait for a connection to be released once a chunk
+	 * host's limit of open connections has been reached
+	 */
+	public static final long DEFAULT_POOL_MAX_WAIT = 60000;
+	/**
+	 * Idle connections older than this (in ms) are closed by the pool
+	 */
+	public static final long DEFAULT_POOL_IDLE_TIMEOUT = 60000;
+	/**
+	 * Query used to validate a pooled connection before handing it out (for
+	 * drivers whose SQL dialect does not provide a cheaper one)
+	 */
+	public static final String DEFAULT_POOL_VALIDATION_QUERY = "SELECT 1";
+	/**
+	 * Placeholder in a SQL query that is replaced by the key range predicate
+	 * of a sub-split. Queries without the placeholder are wrapped instead.
+	 */
+	public static final String SPLIT_RANGE_PLACEHOLDER = "$SPLIT_RANGE$";
+	/**
+	 * Number of row batches a prefetching reader buffers ahead of the mapper
+	 */
+	public static final int DEFAULT_PREFETCH_CAPACITY = 4;
+	/**
+	 * Hedge threshold (ms) used until enough times to first row have been
+	 * observed
+	 */
+	public static final long DEFAULT_HEDGE_THRESHOLD = 5000;
+	/**
+	 * Lower bound (ms) of a hedge threshold derived from observed latencies
+	 */
+	public static final long HEDGE_MIN_THRESHOLD = 200;
+	/**
+	 * Number of observed times to first row needed to derive the threshold
+	 */
+	public static final int HEDGE_MIN_SAMPLES = 20;
+	/**
+	 * Maximum number of chunks combined into one split
+	 */
+	public static final int DEFAULT_COMBINE_MAX_CHUNKS = 64;
+	/**
+	 * Number of times a reader reconnects and resumes a failed scan
+	 */
+	public static final int DEFAULT_RESUME_MAX_ATTEMPTS = 3;
+	/**
+	 * Number of rows inserted into a chunk with a single batch
+	 */
+	public static final int DEFAULT_OUTPUT_BATCH_SIZE = 1000;
+	/**
+	 * Time (ms) a reader may go without fetching a row before its query is
+	 * cancelled
+	 */
+	public static final long DEFAULT_CANCEL_IDLE_TIMEOUT = 3600000;
+	/**
+	 * Number of rows per column batch
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 4096;
+	/**
+	 * Maximum number of join keys passed to the chunks of the other side of
+	 * a join as an IN list (more keys are passed as a Bloom filter)
+	 */
+	public static final int DEFAULT_SEMIJOIN_IN_LIST_SIZE = 1000;
+	/**
+	 * Maximum number of join keys of a semi-join reduction
+	 */
+	public static final int DEFAULT_SEMIJOIN_MAX_KEYS = 100000;
+	/**
+	 * False positive rate of semi-join Bloom filters
+	 */
+	public static final double SEMIJOIN_FALSE_POSITIVE_RATE = 0.01;
+	/**
+	 * Counter group of per-host time to first row histograms
+	 */
+	public static final String HOST_LATENCY_COUNTER_GROUP = "HadoopDB host time to first row";
+	/**
+	 * Upper bounds (ms) of the time to first row histogram buckets
+	 */
+	public static final long[] HOST_LATENCY_BUCKETS = { 10, 100, 1000, 10000, 60000 };
 	
 
 }
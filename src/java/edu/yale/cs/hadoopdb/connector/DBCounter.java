@@ -0,0 +1,35 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+/**
+ * Hadoop counters published by record readers (see
+ * {@link AbstractDBRecordReader#close()}). Times are in milliseconds, summed
+ * over all readers. {@link #BYTES_DECODED} is only published by readers that
+ * encode rows themselves (SMS), not by readers of user DBWritables.
+ */
+public enum DBCounter {
+	CHUNKS_READ,
+	CONNECT_MILLIS,
+	FIRST_ROW_MILLIS,
+	RETRIEVAL_MILLIS,
+	ROWS,
+	BYTES_DECODED,
+	CONNECT_RETRIES,
+	LOCALITY_MISSES,
+	HEDGED_READS,
+	SEMIJOIN_FILTERED_ROWS
+}
@@ -17,7 +17,9 @@ package edu.yale.cs.hadoopdb.connector;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.mapred.InputFormat;
@@ -55,7 +57,10 @@ public abstract class DBInputFormat<T extends DBWritable> implements
 	public RecordReader<LongWritable, T> getRecordReader(InputSplit split,
 			JobConf job, Reporter reporter) throws IOException {		
 		try {
-			return new DBRecordReader<T>(dbConf, (DBInputSplit) split, job);
+			DBRecordReader<T> reader = new DBRecordReader<T>(dbConf,
+					(DBInputSplit) split, job);
+			reader.setReporter(reporter);
+			return reader;
 		} catch (SQLException e) {
 			throw new IOException(e);
 		}
@@ -63,28 +68,62 @@ public abstract class DBInputFormat<T extends DBWritable> implements
 
 	/**
 	 * Retrieves the location of chunks for a given
-	 * relation. Then, it creates as many splits as the number of chunks. Each split is assigned
-	 * a chunk (which holds connection and location information).
+	 * relation. Then, it creates as many splits as the number of chunks (of those that may
+	 * match {@link DBConst#DB_CHUNK_PREDICATE}, see {@link DBChunkPruner}). Each split is assigned
+	 * a chunk (which holds connection and location information). If sub-splitting is configured
+	 * (see {@link DBChunkSplitter}), each chunk is further divided into key range splits.
+	 * Splits carry row estimates (see {@link DBChunkStatistics}) and are returned largest first.
 	 */
 	@Override
 	public InputSplit[] getSplits(JobConf conf, int numSplits)
 			throws IOException {
+		return createSplits(conf, dbConf);
+	}
+
+	/**
+	 * Creates the splits of the relation of dbConf (see
+	 * {@link #getSplits(JobConf, int)})
+	 */
+	static InputSplit[] createSplits(JobConf conf, DBConfiguration dbConf)
+			throws IOException {
 
 		Catalog.getInstance(conf).setSplitLocationStructure(dbConf, conf.get(DBConst.DB_RELATION_ID));
-		Collection<DBChunk> chunks = dbConf.getChunks();
-		InputSplit[] splits = new InputSplit[chunks.size()];
+		Collection<DBChunk> chunks = DBChunkPruner.prune(conf, dbConf
+				.getRelation(), dbConf.getChunks(), conf
+				.get(DBConst.DB_CHUNK_PREDICATE));
+		List<DBInputSplit> splits = new ArrayList<DBInputSplit>(chunks.size());
+		boolean subSplit = DBChunkSplitter.isEnabled(conf);
 
-		int i = 0;
 		for (DBChunk chunk : chunks) {
-			DBInputSplit split = new DBInputSplit();
-			split.setChunk(chunk);
-			split.setRelation(dbConf.getRelation());
+			List<DBChunkSplitter.Range> ranges = subSplit ? DBChunkSplitter
+					.getRanges(conf, chunk, dbConf.getRelation()) : null;
+			long estimatedRows = DBChunkStatistics.estimateRows(conf, chunk,
+					dbConf.getRelation(), dbConf.getSqlQuery());
 
-			splits[i] = split;
-			i++;
+			if (ranges == null || ranges.size() < 2) {
+				DBInputSplit split = createSplit(chunk, dbConf);
+				split.setEstimatedRows(estimatedRows);
+				splits.add(split);
+			} else {
+				for (DBChunkSplitter.Range range : ranges) {
+					DBInputSplit split = createSplit(chunk, dbConf);
+					split.setRange(conf.get(DBConst.DB_SPLIT_COLUMN), range);
+					split.setEstimatedRows(estimatedRows / ranges.size());
+					splits.add(split);
+				}
+			}
 		}
 
-		return splits;
+		DBChunkStatistics.sortLargestFirst(splits);
+		return splits.toArray(new InputSplit[splits.size()]);
+	}
+
+	private static DBInputSplit createSplit(DBChunk chunk,
+			DBConfiguration dbConf) {
+		DBInputSplit split = new DBInputSplit();
+		split.setChunk(chunk);
+		split.setRelation(dbConf.getRelation());
+		return split;
 	}
 
 }
@@ -15,18 +15,13 @@
  */
 package edu.yale.cs.hadoopdb.connector;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.Collection;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.InputSplit;
 
@@ -44,6 +39,17 @@ public class DBInputSplit implements InputSplit {
 	protected String[] locations;
 	protected DBChunk chunk;
 	protected String relation;
+
+	// optional key range of the chunk read by this split (null if the whole
+	// chunk is read)
+	protected String rangeColumn;
+	protected long rangeStart;
+	protected long rangeEnd;
+	protected boolean rangeFirst;
+	protected boolean rangeLast;
+
+	// estimated number of rows read by this split (0 if unknown)
+	protected long estimatedRows;
 	
 
 	public DBChunk getChunk() {
@@ -65,6 +71,41 @@ public class DBInputSplit implements InputSplit {
 	public void setRelation(String relation) {
 		this.relation = relation;
 	}
+
+	/**
+	 * Restricts this split to a key range of the chunk
+	 */
+	public void setRange(String column, DBChunkSplitter.Range range) {
+		this.rangeColumn = column;
+		this.rangeStart = range.getStart();
+		this.rangeEnd = range.getEnd();
+		this.rangeFirst = range.isFirst();
+		this.rangeLast = range.isLast();
+	}
+
+	public boolean hasRange() {
+		return rangeColumn != null;
+	}
+
+	/**
+	 * Returns a SQL predicate selecting rows of this split's key range or
+	 * null if the split reads the whole chunk. NULL keys belong to the first
+	 * range of a chunk.
+	 */
+	public String getRangePredicate() {
+		if (rangeColumn == null) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(rangeColumn).append(" >= ").append(rangeStart);
+		sb.append(" AND ").append(rangeColumn);
+		sb.append(rangeLast ? " <= " : " < ").append(rangeEnd);
+		if (rangeFirst) {
+			sb.insert(0, "(").append(" OR ").append(rangeColumn).append(
+					" IS NULL)");
+		}
+		return sb.toString();
+	}
 	
 	/**
 	 * This method is called by readFields or setChunk on split 
@@ -82,13 +123,21 @@ public class DBInputSplit implements InputSplit {
 		}
 	}
 	
+	public long getEstimatedRows() {
+		return estimatedRows;
+	}
+
+	public void setEstimatedRows(long estimatedRows) {
+		this.estimatedRows = estimatedRows;
+	}
+
 	/**
-	 * Returns 1 now... could in the future return
-	 * information about the size of the Chunk (e.g. number of rows)
+	 * Returns the estimated number of rows read by this split (see
+	 * {@link DBChunkStatistics}) or 1 if no estimate is available.
 	 */
 	@Override
 	public long getLength() throws IOException {
-		return 1;
+		return Math.max(1, estimatedRows);
 	}
 
 	/**
@@ -100,56 +149,58 @@ public class DBInputSplit implements InputSplit {
 	}
 	
 	/**
-	 * Deserializes relation and DBChunk object. Then creates the list of locations from the
-	 * DBChunk object.
+	 * Deserializes relation, DBChunk object, the optional key range and the
+	 * size estimate. Then
+	 * creates the list of locations from the DBChunk object.
 	 */
 	@Override
 	public void readFields(DataInput in) throws IOException {
 		relation = Text.readString(in);
 		setChunk(deserializeChunk(in));
+		if (in.readBoolean()) {
+			rangeColumn = Text.readString(in);
+			rangeStart = in.readLong();
+			rangeEnd = in.readLong();
+			rangeFirst = in.readBoolean();
+			rangeLast = in.readBoolean();
+		} else {
+			rangeColumn = null;
+		}
+		estimatedRows = in.readLong();
 	}
 
 	/**
-	 * Serializes the relation and Chunk object.
+	 * Serializes the relation, Chunk object, the optional key range and the
+	 * size estimate.
 	 */
 	@Override
 	public void write(DataOutput out) throws IOException {
 		Text.writeString(out, relation);
 		serializeChunk(chunk, out);
+		out.writeBoolean(rangeColumn != null);
+		if (rangeColumn != null) {
+			Text.writeString(out, rangeColumn);
+			out.writeLong(rangeStart);
+			out.writeLong(rangeEnd);
+			out.writeBoolean(rangeFirst);
+			out.writeBoolean(rangeLast);
+		}
+		out.writeLong(estimatedRows);
 	}
 
 	/**
-	 * Serializes DBChunk 
+	 * Serializes DBChunk using its compact Writable encoding
 	 */
 	private void serializeChunk(DBChunk chunk, DataOutput out)
 			throws IOException {
-		ByteArrayOutputStream byte_stream = new ByteArrayOutputStream();
-		ObjectOutputStream object_stream = new ObjectOutputStream(
-				byte_stream);
-		object_stream.writeObject(chunk);
-		object_stream.close();
-
-		byte[] buf = byte_stream.toByteArray();
-		BytesWritable bw = new BytesWritable(buf);
-		bw.write(out);
+		chunk.write(out);
 	}
 
 	/**
 	 * Deserializes DBChunk 
 	 */
 	private DBChunk deserializeChunk(DataInput in) throws IOException {
-		BytesWritable br = new BytesWritable();
-		br.readFields(in);
-		byte[] buf = br.getBytes();
-		ObjectInputStream byte_stream = new ObjectInputStream(
-				new ByteArrayInputStream(buf));
-		DBChunk chunk = null;
-		try {
-			chunk = (DBChunk) byte_stream.readObject();
-		} catch (ClassNotFoundException e) {
-			throw new IOException(e);
-		}
-		return chunk;
+		return DBChunk.read(in);
 	}
-		
+
 }
\ No newline at end of file
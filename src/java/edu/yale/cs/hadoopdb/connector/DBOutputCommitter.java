@@ -0,0 +1,166 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.JobContext;
+import org.apache.hadoop.mapred.OutputCommitter;
+import org.apache.hadoop.mapred.TaskAttemptContext;
+
+/**
+ * Commits the database transactions of a task attempt's {@link DBOutputFormat}
+ * record writer when the task is committed, so that output of failed or
+ * speculative attempts never becomes visible. Task commit runs in the task's
+ * JVM, where the record writer registers its open connections.
+ * <p>
+ * The transactions are committed one host at a time, not with a two-phase
+ * commit, so a task's write is not atomic across hosts (replicas or
+ * partitions): if a commit fails, the transactions committed before it stay
+ * committed while the remaining ones are rolled back. The committed and
+ * rolled back hosts are logged, and the task fails.
+ */
+public class DBOutputCommitter extends OutputCommitter {
+
+	public static final Log LOG = LogFactory.getLog(DBOutputCommitter.class
+			.getName());
+
+	/**
+	 * Uncommitted connections (and their hosts) per task attempt id
+	 */
+	private static Map<String, Map<Connection, DBChunkHost>> pending = new HashMap<String, Map<Connection, DBChunkHost>>();
+
+	/**
+	 * Registers the connections a task attempt has written to. They are
+	 * committed or rolled back (and returned to the pool) with the task.
+	 */
+	public static synchronized void register(String attemptId,
+			Map<Connection, DBChunkHost> connections) {
+		Map<Connection, DBChunkHost> map = pending.get(attemptId);
+		if (map == null) {
+			pending.put(attemptId, connections);
+		} else {
+			map.putAll(connections);
+		}
+	}
+
+	private static synchronized Map<Connection, DBChunkHost> take(
+			String attemptId) {
+		return pending.remove(attemptId);
+	}
+
+	@Override
+	public void setupJob(JobContext context) throws IOException {
+	}
+
+	@Override
+	public void cleanupJob(JobContext context) throws IOException {
+	}
+
+	@Override
+	public void setupTask(TaskAttemptContext context) throws IOException {
+	}
+
+	@Override
+	public boolean needsTaskCommit(TaskAttemptContext context)
+			throws IOException {
+		synchronized (DBOutputCommitter.class) {
+			return pending.containsKey(context.getTaskAttemptID().toString());
+		}
+	}
+
+	@Override
+	public void commitTask(TaskAttemptContext context) throws IOException {
+		String attemptId = context.getTaskAttemptID().toString();
+		Map<Connection, DBChunkHost> connections = take(attemptId);
+		if (connections == null) {
+			return;
+		}
+		List<String> committed = new ArrayList<String>();
+		for (Map.Entry<Connection, DBChunkHost> e : connections.entrySet()) {
+			try {
+				e.getKey().commit();
+				committed.add(e.getValue().getHost());
+			} catch (SQLException ex) {
+				LOG.error("Commit of " + attemptId + " failed on "
+						+ e.getValue().getHost() + " after committing on "
+						+ committed + "; rolling back the transactions on the"
+						+ " other hosts, the committed ones stay visible.");
+				rollback(connections);
+				discard(context.getJobConf(), connections);
+				throw new IOException(ex);
+			}
+		}
+		LOG.info("Committed " + connections.size()
+				+ " database transaction(s) of " + attemptId + " on "
+				+ committed);
+		close(context.getJobConf(), connections);
+	}
+
+	@Override
+	public void abortTask(TaskAttemptContext context) throws IOException {
+		Map<Connection, DBChunkHost> connections = take(context
+				.getTaskAttemptID().toString());
+		if (connections != null) {
+			rollback(connections);
+			close(context.getJobConf(), connections);
+		}
+	}
+
+	private static void rollback(Map<Connection, DBChunkHost> connections) {
+		for (Connection connection : connections.keySet()) {
+			try {
+				connection.rollback();
+			} catch (SQLException e) {
+				LOG.warn("Error while rolling back.", e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the connections to the pool (rolling back anything left open)
+	 */
+	private static void close(JobConf conf,
+			Map<Connection, DBChunkHost> connections) {
+		for (Map.Entry<Connection, DBChunkHost> e : connections.entrySet()) {
+			try {
+				DBConnectionPool.closeConnection(conf, e.getValue(), e.getKey());
+			} catch (SQLException ex) {
+				LOG.debug("Error while closing connection.", ex);
+			}
+		}
+	}
+
+	/**
+	 * Closes connections whose transactions failed without reusing them
+	 */
+	private static void discard(JobConf conf,
+			Map<Connection, DBChunkHost> connections) {
+		for (Map.Entry<Connection, DBChunkHost> e : connections.entrySet()) {
+			DBConnectionPool.discardConnection(conf, e.getValue(), e.getKey());
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.OutputFormat;
+import org.apache.hadoop.mapred.RecordWriter;
+import org.apache.hadoop.util.Progressable;
+
+import edu.yale.cs.hadoopdb.catalog.Catalog;
+
+/**
+ * Writes job output into the chunk databases of a HadoopDB relation. Each
+ * record is routed to the chunk the data loader (GlobalHasher and LocalHasher)
+ * stores its partitioning value in (see {@link Catalog#getHashChunk}) and inserted
+ * into all replicas of the chunk with batched prepared statements. Values are
+ * either {@link DBWritable}s (bound with write(PreparedStatement);
+ * {@link AnnotatedDBWritable} fields are matched to the output schema's
+ * columns by label) or delimited text rows (bound with
+ * {@link edu.yale.cs.hadoopdb.util.ParseSchema}). Inserts are committed when
+ * the task is committed (see {@link DBOutputCommitter}).
+ * 
+ * The partitioning value is the output key's string form or, if the key is
+ * null or a NullWritable, the field of a text row at position
+ * {@link DBConst#DB_OUTPUT_PARTITION_FIELD}.
+ */
+public class DBOutputFormat<K, V> implements OutputFormat<K, V> {
+
+	/**
+	 * Configures a job to write into a relation with the given schema
+	 * ("field_name_1 field_type_1, ...")
+	 */
+	public static void setOutput(JobConf job, String relation, String schema) {
+		job.setOutputFormat(DBOutputFormat.class);
+		job.setOutputCommitter(DBOutputCommitter.class);
+		job.set(DBConst.DB_OUTPUT_RELATION, relation);
+		job.set(DBConst.DB_OUTPUT_SCHEMA, schema);
+	}
+
+	@Override
+	public RecordWriter<K, V> getRecordWriter(FileSystem ignored, JobConf job,
+			String name, Progressable progress) throws IOException {
+		return new DBRecordWriter<K, V>(job, progress);
+	}
+
+	/**
+	 * Checks that an output relation and schema are configured and that the
+	 * relation is defined in the catalog
+	 */
+	@Override
+	public void checkOutputSpecs(FileSystem ignored, JobConf job)
+			throws IOException {
+		String relation = job.get(DBConst.DB_OUTPUT_RELATION);
+		if (relation == null || job.get(DBConst.DB_OUTPUT_SCHEMA) == null) {
+			throw new IOException("DBOutputFormat requires "
+					+ DBConst.DB_OUTPUT_RELATION + " and "
+					+ DBConst.DB_OUTPUT_SCHEMA + " to be configured.");
+		}
+		try {
+			Catalog.getInstance(job).getReplicatedLocationStructure(relation);
+		} catch (RuntimeException e) {
+			throw new IOException(e);
+		}
+	}
+
+}
@@ -74,9 +74,11 @@ public class DBRecordReader<T extends DBWritable> extends AbstractDBRecordReader
 	@Override
 	public boolean next(LongWritable key, T value) throws IOException {
 		try {
-			if (!results.next())
+			if (!fetchNext())
 				return false;
 			
+			if (pos == 0)
+				firstRowTime = System.currentTimeMillis();
 			key.set(pos);
 			value.readFields(results);
 
@@ -0,0 +1,217 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordWriter;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.util.Progressable;
+
+import edu.yale.cs.hadoopdb.catalog.Catalog;
+import edu.yale.cs.hadoopdb.util.ParseSchema;
+
+/**
+ * RecordWriter of {@link DBOutputFormat}. Each row is written into the chunk
+ * the data loader would have stored it in (see {@link Catalog#getHashChunk}).
+ * Connections to the chunk databases are opened on first use and kept open
+ * (with an uncommitted transaction) until the task is committed or aborted.
+ */
+public class DBRecordWriter<K, V> implements RecordWriter<K, V> {
+
+	public static final Log LOG = LogFactory.getLog(DBRecordWriter.class
+			.getName());
+
+	private static final Pattern DELIMITER_PATTERN = Pattern.compile("\\"
+			+ ParseSchema.DELIMITER);
+
+	/**
+	 * Insert statements into all replicas of a chunk
+	 */
+	private static class ChunkWriter {
+		private List<PreparedStatement> statements = new ArrayList<PreparedStatement>();
+		private int pending = 0;
+	}
+
+	private String attemptId;
+	private Progressable progress;
+	private ParseSchema parser;
+	private String insertQuery;
+	// columns of the INSERT, in parameter order
+	private String[] columns;
+	private int batchSize;
+	private int partitionField;
+	private int chunksPerNode;
+	private JobConf job;
+
+	private List<DBChunk> chunks;
+	private ChunkWriter[] writers;
+	// open connections and the hosts they belong to
+	private Map<Connection, DBChunkHost> connections = new LinkedHashMap<Connection, DBChunkHost>();
+	private long rows = 0;
+
+	public DBRecordWriter(JobConf job, Progressable progress)
+			throws IOException {
+		this.job = job;
+		this.attemptId = job.get("mapred.task.id");
+		this.progress = progress;
+		String relation = job.get(DBConst.DB_OUTPUT_RELATION);
+		parser = new ParseSchema(job.get(DBConst.DB_OUTPUT_SCHEMA));
+		insertQuery = parser.getInsertRowQuery(relation);
+		columns = new String[parser.getColumnCount()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = parser.getLabel(i + 1);
+		}
+		batchSize = job.getInt(DBConst.DB_OUTPUT_BATCH_SIZE,
+				DBConst.DEFAULT_OUTPUT_BATCH_SIZE);
+		partitionField = job.getInt(DBConst.DB_OUTPUT_PARTITION_FIELD, 0);
+
+		// chunks are ordered by id (0 .. n-1, see Catalog.getChunksPerNode)
+		Catalog catalog = Catalog.getInstance(job);
+		chunksPerNode = catalog.getChunksPerNode(relation);
+		if (chunksPerNode == 0) {
+			throw new IOException("Hash layout of relation " + relation
+					+ " is not known: the catalog must declare chunksPerNode"
+					+ " and number its chunks from 0.");
+		}
+		chunks = new ArrayList<DBChunk>(catalog
+				.getReplicatedLocationStructure(relation));
+		writers = new ChunkWriter[chunks.size()];
+	}
+
+	@Override
+	public void write(K key, V value) throws IOException {
+		String row = (value instanceof DBWritable) ? null : value.toString();
+		String partitionKey;
+		if (key == null || key instanceof NullWritable) {
+			if (row == null) {
+				throw new IOException(
+						"A key is required to partition DBWritable values.");
+			}
+			partitionKey = DELIMITER_PATTERN.split(row)[partitionField];
+		} else {
+			partitionKey = key.toString();
+		}
+
+		int partition = Catalog.getHashChunk(partitionKey, chunks.size(),
+				chunksPerNode);
+		try {
+			ChunkWriter writer = getWriter(partition);
+			for (PreparedStatement ps : writer.statements) {
+				if (value instanceof AnnotatedDBWritable) {
+					((AnnotatedDBWritable) value).write(ps, columns);
+				} else if (row == null) {
+					((DBWritable) value).write(ps);
+				} else {
+					parser.deserializeRow(row, ps);
+				}
+				ps.addBatch();
+			}
+			if (++writer.pending >= batchSize) {
+				flush(writer);
+			}
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+		rows++;
+	}
+
+	/**
+	 * Opens connections to all replicas of a chunk on first use
+	 */
+	private ChunkWriter getWriter(int partition) throws SQLException,
+			IOException {
+		ChunkWriter writer = writers[partition];
+		if (writer == null) {
+			writer = new ChunkWriter();
+			for (DBChunkHost host : chunks.get(partition).getHosts()) {
+				Connection connection;
+				try {
+					connection = DBConnectionPool.openConnection(job, host);
+				} catch (ClassNotFoundException e) {
+					throw new IOException(e);
+				}
+				connections.put(connection, host);
+				connection.setAutoCommit(false);
+				writer.statements.add(connection.prepareStatement(insertQuery));
+			}
+			writers[partition] = writer;
+		}
+		return writer;
+	}
+
+	private void flush(ChunkWriter writer) throws SQLException {
+		if (writer.pending == 0) {
+			return;
+		}
+		for (PreparedStatement ps : writer.statements) {
+			ps.executeBatch();
+			progress.progress();
+		}
+		writer.pending = 0;
+	}
+
+	/**
+	 * Executes outstanding batches and hands the connections to
+	 * {@link DBOutputCommitter}. Without a task attempt id (e.g. when not
+	 * running as a task), the transactions are committed right away.
+	 */
+	@Override
+	public void close(Reporter reporter) throws IOException {
+		try {
+			for (ChunkWriter writer : writers) {
+				if (writer != null) {
+					flush(writer);
+					for (PreparedStatement ps : writer.statements) {
+						ps.close();
+					}
+				}
+			}
+			if (attemptId == null) {
+				for (Map.Entry<Connection, DBChunkHost> e : connections
+						.entrySet()) {
+					e.getKey().commit();
+					DBConnectionPool.closeConnection(job, e.getValue(), e
+							.getKey());
+				}
+			} else {
+				DBOutputCommitter.register(attemptId, connections);
+			}
+			LOG.info("Rows written = " + rows + " into "
+					+ connections.size() + " chunk database(s)");
+		} catch (SQLException e) {
+			for (Map.Entry<Connection, DBChunkHost> c : connections
+					.entrySet()) {
+				DBConnectionPool.discardConnection(job, c.getValue(), c
+						.getKey());
+			}
+			throw new IOException(e);
+		}
+	}
+
+}
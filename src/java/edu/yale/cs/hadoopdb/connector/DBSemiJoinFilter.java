@@ -0,0 +1,179 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.util.StringUtils;
+import org.apache.hadoop.util.bloom.BloomFilter;
+import org.apache.hadoop.util.bloom.Key;
+import org.apache.hadoop.util.hash.Hash;
+
+/**
+ * Bloom filter over the join keys of one side of a join (semi-join
+ * reduction). The planner collects the distinct keys of the selective side
+ * from its chunks ({@link #collectKeys}) and passes the filter to the readers
+ * of the other side in the job configuration. Readers then drop rows whose
+ * key cannot have a join partner before they are materialized. Keys are
+ * compared by their string value (ResultSet.getString), so the planner only
+ * uses the filter for int, bigint and string join keys, whose string values
+ * do not depend on the database or driver (unlike those of floating point
+ * or date/time values).
+ */
+public class DBSemiJoinFilter {
+
+	public static final Log LOG = LogFactory.getLog(DBSemiJoinFilter.class
+			.getName());
+
+	private BloomFilter bloom;
+
+	private DBSemiJoinFilter(BloomFilter bloom) {
+		this.bloom = bloom;
+	}
+
+	/**
+	 * Creates a filter containing the given keys, sized for the false
+	 * positive rate {@link DBConst#SEMIJOIN_FALSE_POSITIVE_RATE}
+	 */
+	public static DBSemiJoinFilter create(Collection<String> keys) {
+		int n = Math.max(1, keys.size());
+		double ln2 = Math.log(2);
+		int vectorSize = (int) Math.ceil(-n
+				* Math.log(DBConst.SEMIJOIN_FALSE_POSITIVE_RATE) / (ln2 * ln2));
+		int nbHash = Math.max(1, (int) Math.round((double) vectorSize / n * ln2));
+
+		DBSemiJoinFilter filter = new DBSemiJoinFilter(new BloomFilter(
+				vectorSize, nbHash, Hash.MURMUR_HASH));
+		for (String key : keys) {
+			filter.bloom.add(toKey(key));
+		}
+		return filter;
+	}
+
+	/**
+	 * Returns false if the key was certainly not added to the filter. Null
+	 * keys never match.
+	 */
+	public boolean mightContain(String key) {
+		return key != null && bloom.membershipTest(toKey(key));
+	}
+
+	/**
+	 * Serializes the filter into a string stored in the job configuration
+	 */
+	public String serialize() throws IOException {
+		DataOutputBuffer out = new DataOutputBuffer();
+		bloom.write(out);
+		byte[] bytes = new byte[out.getLength()];
+		System.arraycopy(out.getData(), 0, bytes, 0, bytes.length);
+		return StringUtils.byteToHexString(bytes);
+	}
+
+	/**
+	 * Counterpart of {@link #serialize()}
+	 */
+	public static DBSemiJoinFilter deserialize(String s) throws IOException {
+		byte[] bytes = StringUtils.hexStringToByte(s);
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(bytes, bytes.length);
+		BloomFilter bloom = new BloomFilter();
+		bloom.readFields(in);
+		return new DBSemiJoinFilter(bloom);
+	}
+
+	private static Key toKey(String key) {
+		try {
+			return new Key(key.getBytes("UTF-8"));
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the distinct non-null values of a column returned by a query
+	 * over the given chunks of a relation, or null if there are more than
+	 * maxKeys of them or a chunk could not be queried (the semi-join
+	 * reduction is then not worth it or not possible).
+	 *
+	 * @param sqlQuery
+	 *            query (without trailing semicolon) returning the column
+	 */
+	public static Set<String> collectKeys(JobConf conf,
+			Collection<DBChunk> chunks, String sqlQuery, String column,
+			int maxKeys) {
+
+		Set<String> keys = new HashSet<String>();
+		for (DBChunk chunk : chunks) {
+			DBChunkHost host = chunk.getAnyHost();
+			try {
+				Connection connection = DBConnectionPool.openConnection(conf, host);
+				try {
+					SQLDialect dialect = SQLDialect.forHost(conf, host);
+					if (!collectKeys(connection, "SELECT DISTINCT " + column
+							+ " FROM (" + sqlQuery + ") AS "
+							+ dialect.quoteIdentifier("semijoin"), keys, maxKeys)) {
+						LOG.info("More than " + maxKeys
+								+ " join keys - no semi-join reduction");
+						return null;
+					}
+				} finally {
+					DBConnectionPool.closeConnection(conf, host, connection);
+				}
+			} catch (Exception e) {
+				LOG.warn("Could not collect join keys from chunk "
+						+ chunk.getId() + ": " + e);
+				return null;
+			}
+		}
+		return keys;
+	}
+
+	private static boolean collectKeys(Connection connection, String sql,
+			Set<String> keys, int maxKeys) throws SQLException {
+
+		LOG.debug(sql);
+		Statement statement = connection.createStatement();
+		try {
+			ResultSet rs = statement.executeQuery(sql);
+			while (rs.next()) {
+				String key = rs.getString(1);
+				if (key != null) {
+					keys.add(key);
+					if (keys.size() > maxKeys) {
+						return false;
+					}
+				}
+			}
+			return true;
+		} finally {
+			statement.close();
+		}
+	}
+
+}
@@ -0,0 +1,363 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binds the {@link DBField} annotated fields of a class to result columns.
+ * The fields of a class are inspected once and column labels are resolved to
+ * indices once per result set ({@link #bind(ResultSet)}); each row is then
+ * read with the typed getter of the field's type and stored with the
+ * matching primitive Field setter, so reading a row involves neither column
+ * name lookups nor boxing of primitive fields. Primitive fields of NULL
+ * columns are set to 0 or false (as the typed getters return).
+ * <p>
+ * Since the order of a class's fields is not defined by reflection, fields
+ * are written to statement parameters either by label against the columns
+ * of the INSERT ({@link #bindParameters(String[])}, as
+ * {@link DBRecordWriter} does with the output schema) or at the positions
+ * given by <code>@DBField(index = ...)</code>.
+ * 
+ * Usage from a DBWritable:
+ * 
+ * <pre>
+ * private static final DBWritableBinder BINDER = DBWritableBinder
+ * 		.forClass(MyRecord.class);
+ * 
+ * public void readFields(ResultSet rs) throws SQLException {
+ * 	if (rs != bound) {
+ * 		indices = BINDER.bind(rs);
+ * 		bound = rs;
+ * 	}
+ * 	BINDER.read(this, rs, indices);
+ * }
+ * </pre>
+ * 
+ * or simply extend {@link AnnotatedDBWritable}.
+ */
+public class DBWritableBinder {
+
+	private static final int INT = 0;
+	private static final int LONG = 1;
+	private static final int DOUBLE = 2;
+	private static final int FLOAT = 3;
+	private static final int SHORT = 4;
+	private static final int BYTE = 5;
+	private static final int BOOLEAN = 6;
+	private static final int STRING = 7;
+	private static final int DATE = 8;
+	private static final int TIME = 9;
+	private static final int TIMESTAMP = 10;
+	private static final int DECIMAL = 11;
+	private static final int BYTES = 12;
+	private static final int OBJECT = 13;
+
+	private static Map<Class<?>, DBWritableBinder> binders = new HashMap<Class<?>, DBWritableBinder>();
+
+	private Field[] fields;
+	private String[] labels;
+	private int[] types;
+	// declared parameter positions (null if not given)
+	private int[] positions;
+
+	/**
+	 * Returns the (cached) binder of a class
+	 */
+	public static synchronized DBWritableBinder forClass(Class<?> c) {
+		DBWritableBinder binder = binders.get(c);
+		if (binder == null) {
+			binder = new DBWritableBinder(c);
+			binders.put(c, binder);
+		}
+		return binder;
+	}
+
+	/**
+	 * Collects the annotated fields of a class and its superclasses (in
+	 * declaration order, superclass fields first)
+	 */
+	private DBWritableBinder(Class<?> c) {
+		List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+		for (Class<?> k = c; k != null && k != Object.class; k = k
+				.getSuperclass()) {
+			hierarchy.add(0, k);
+		}
+
+		List<Field> annotated = new ArrayList<Field>();
+		List<String> names = new ArrayList<String>();
+		List<Integer> indices = new ArrayList<Integer>();
+		for (Class<?> k : hierarchy) {
+			for (Field f : k.getDeclaredFields()) {
+				DBField a = f.getAnnotation(DBField.class);
+				if (a == null) {
+					continue;
+				}
+				if (Modifier.isStatic(f.getModifiers())
+						|| Modifier.isFinal(f.getModifiers())) {
+					throw new IllegalArgumentException("@DBField " + f
+							+ " must not be static or final");
+				}
+				f.setAccessible(true);
+				annotated.add(f);
+				names.add(a.value().length() > 0 ? a.value() : f.getName());
+				indices.add(a.index());
+			}
+		}
+		if (annotated.isEmpty()) {
+			throw new IllegalArgumentException(c.getName()
+					+ " has no @DBField fields");
+		}
+
+		fields = annotated.toArray(new Field[annotated.size()]);
+		labels = names.toArray(new String[names.size()]);
+		types = new int[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			types[i] = getType(fields[i].getType());
+		}
+		positions = getPositions(c, indices);
+	}
+
+	/**
+	 * Checks the declared parameter positions: either none or all fields
+	 * declare one, and no two the same
+	 */
+	private static int[] getPositions(Class<?> c, List<Integer> indices) {
+		Set<Integer> seen = new HashSet<Integer>();
+		for (int index : indices) {
+			if (index > 0 && !seen.add(index)) {
+				throw new IllegalArgumentException(c.getName()
+						+ " declares @DBField index " + index + " twice");
+			}
+		}
+		if (seen.isEmpty()) {
+			return null;
+		}
+		if (seen.size() < indices.size()) {
+			throw new IllegalArgumentException(c.getName()
+					+ " must declare an @DBField index for all fields or none");
+		}
+		int[] positions = new int[indices.size()];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = indices.get(i);
+		}
+		return positions;
+	}
+
+	private static int getType(Class<?> t) {
+		if (t == int.class) {
+			return INT;
+		} else if (t == long.class) {
+			return LONG;
+		} else if (t == double.class) {
+			return DOUBLE;
+		} else if (t == float.class) {
+			return FLOAT;
+		} else if (t == short.class) {
+			return SHORT;
+		} else if (t == byte.class) {
+			return BYTE;
+		} else if (t == boolean.class) {
+			return BOOLEAN;
+		} else if (t == String.class) {
+			return STRING;
+		} else if (t == java.sql.Date.class) {
+			return DATE;
+		} else if (t == Time.class) {
+			return TIME;
+		} else if (t == Timestamp.class) {
+			return TIMESTAMP;
+		} else if (t == BigDecimal.class) {
+			return DECIMAL;
+		} else if (t == byte[].class) {
+			return BYTES;
+		}
+		return OBJECT;
+	}
+
+	/**
+	 * Returns the column labels of the bound fields (in binding order)
+	 */
+	public String[] getLabels() {
+		return labels.clone();
+	}
+
+	/**
+	 * Resolves the column index of each field in a result set
+	 */
+	public int[] bind(ResultSet rs) throws SQLException {
+		int[] indices = new int[labels.length];
+		for (int i = 0; i < labels.length; i++) {
+			indices[i] = rs.findColumn(labels[i]);
+		}
+		return indices;
+	}
+
+	/**
+	 * Reads the current row into the object's fields
+	 * 
+	 * @param indices
+	 *            column indices returned by {@link #bind(ResultSet)}
+	 */
+	public void read(Object o, ResultSet rs, int[] indices)
+			throws SQLException {
+		try {
+			for (int i = 0; i < fields.length; i++) {
+				Field f = fields[i];
+				int c = indices[i];
+				switch (types[i]) {
+				case INT:
+					f.setInt(o, rs.getInt(c));
+					break;
+				case LONG:
+					f.setLong(o, rs.getLong(c));
+					break;
+				case DOUBLE:
+					f.setDouble(o, rs.getDouble(c));
+					break;
+				case FLOAT:
+					f.setFloat(o, rs.getFloat(c));
+					break;
+				case SHORT:
+					f.setShort(o, rs.getShort(c));
+					break;
+				case BYTE:
+					f.setByte(o, rs.getByte(c));
+					break;
+				case BOOLEAN:
+					f.setBoolean(o, rs.getBoolean(c));
+					break;
+				case STRING:
+					f.set(o, rs.getString(c));
+					break;
+				case DATE:
+					f.set(o, rs.getDate(c));
+					break;
+				case TIME:
+					f.set(o, rs.getTime(c));
+					break;
+				case TIMESTAMP:
+					f.set(o, rs.getTimestamp(c));
+					break;
+				case DECIMAL:
+					f.set(o, rs.getBigDecimal(c));
+					break;
+				case BYTES:
+					f.set(o, rs.getBytes(c));
+					break;
+				default:
+					f.set(o, rs.getObject(c));
+				}
+			}
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Resolves the parameter position of each field from the columns of an
+	 * INSERT statement (matching labels ignoring case)
+	 */
+	public int[] bindParameters(String[] columns) throws SQLException {
+		int[] params = new int[labels.length];
+		for (int i = 0; i < labels.length; i++) {
+			for (int j = 0; j < columns.length && params[i] == 0; j++) {
+				if (labels[i].equalsIgnoreCase(columns[j].trim())) {
+					params[i] = j + 1;
+				}
+			}
+			if (params[i] == 0) {
+				throw new SQLException("No column " + labels[i] + " in "
+						+ Arrays.toString(columns));
+			}
+		}
+		return params;
+	}
+
+	/**
+	 * Sets the object's fields as statement parameters at their declared
+	 * <code>@DBField(index = ...)</code> positions. Without declared
+	 * positions, only a single field can be written this way.
+	 */
+	public void write(Object o, PreparedStatement statement)
+			throws SQLException {
+		if (positions == null && fields.length > 1) {
+			throw new SQLException("Fields of " + o.getClass().getName()
+					+ " have no @DBField index; bind them to the INSERT"
+					+ " columns with bindParameters() instead.");
+		}
+		write(o, statement, positions == null ? new int[] { 1 } : positions);
+	}
+
+	/**
+	 * Sets the object's fields as statement parameters
+	 * 
+	 * @param params
+	 *            parameter positions returned by
+	 *            {@link #bindParameters(String[])}
+	 */
+	public void write(Object o, PreparedStatement statement, int[] params)
+			throws SQLException {
+		try {
+			for (int i = 0; i < fields.length; i++) {
+				Field f = fields[i];
+				int p = params[i];
+				switch (types[i]) {
+				case INT:
+					statement.setInt(p, f.getInt(o));
+					break;
+				case LONG:
+					statement.setLong(p, f.getLong(o));
+					break;
+				case DOUBLE:
+					statement.setDouble(p, f.getDouble(o));
+					break;
+				case FLOAT:
+					statement.setFloat(p, f.getFloat(o));
+					break;
+				case SHORT:
+					statement.setShort(p, f.getShort(o));
+					break;
+				case BYTE:
+					statement.setByte(p, f.getByte(o));
+					break;
+				case BOOLEAN:
+					statement.setBoolean(p, f.getBoolean(o));
+					break;
+				default:
+					statement.setObject(p, f.get(o));
+				}
+			}
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.mapred.JobConf;
+
+/**
+ * Tracks the load record readers put on chunk hosts: the number of active
+ * reader connections per host and an exponentially weighted moving average
+ * of query latencies. Counts are kept per JVM. If
+ * {@link DBConst#DB_HOST_LOAD_DIR} is set, every active connection is also
+ * represented by a small marker file in a node-local directory, so that all
+ * task JVMs on a node see each other's connections. A daemon thread touches
+ * the markers of live connections every {@link #HEARTBEAT_PERIOD} ms, so the
+ * markers of a crashed or killed task expire within
+ * {@link #STALE_MARKER_AGE} ms.
+ */
+public class HostLoadTracker {
+
+	public static final Log LOG = LogFactory.getLog(HostLoadTracker.class
+			.getName());
+
+	/**
+	 * Weight of the newest sample in the latency average
+	 */
+	private static final double ALPHA = 0.3;
+	/**
+	 * Interval (ms) in which the markers of live connections are touched
+	 */
+	public static final long HEARTBEAT_PERIOD = 30 * 1000L;
+	/**
+	 * Marker files not touched for this long (ms) were left over by a task
+	 * that died
+	 */
+	public static final long STALE_MARKER_AGE = 3 * HEARTBEAT_PERIOD;
+
+	private static HostLoadTracker singleton;
+
+	public static synchronized HostLoadTracker getInstance() {
+		if (singleton == null)
+			singleton = new HostLoadTracker();
+		return singleton;
+	}
+
+	private Map<String, Integer> active = new HashMap<String, Integer>();
+	private Map<String, Double> latency = new HashMap<String, Double>();
+	private Map<String, LinkedList<File>> markers = new HashMap<String, LinkedList<File>>();
+	private File loadDir;
+	private String jvmId = ManagementFactory.getRuntimeMXBean().getName()
+			.replaceAll("[^A-Za-z0-9._-]", "_");
+	private long markerSeq = 0;
+	private Timer heartbeat;
+
+	private HostLoadTracker() {
+	}
+
+	public synchronized void configure(JobConf conf) {
+		String dir = conf.get(DBConst.DB_HOST_LOAD_DIR);
+		loadDir = (dir == null) ? null : new File(dir);
+	}
+
+	/**
+	 * Registers a new connection to the host
+	 */
+	public synchronized void acquire(DBChunkHost host) {
+		String key = host.getHost();
+		Integer n = active.get(key);
+		active.put(key, n == null ? 1 : n + 1);
+
+		if (loadDir != null) {
+			File hostDir = new File(loadDir, key);
+			File marker = new File(hostDir, jvmId + "-" + (markerSeq++));
+			try {
+				hostDir.mkdirs();
+				if (marker.createNewFile()) {
+					LinkedList<File> list = markers.get(key);
+					if (list == null) {
+						list = new LinkedList<File>();
+						markers.put(key, list);
+					}
+					list.add(marker);
+					startHeartbeat();
+				}
+			} catch (IOException e) {
+				LOG.debug("Could not create load marker " + marker, e);
+			}
+		}
+	}
+
+	/**
+	 * Unregisters a connection to the host
+	 */
+	public synchronized void release(DBChunkHost host) {
+		String key = host.getHost();
+		Integer n = active.get(key);
+		if (n != null) {
+			if (n <= 1) {
+				active.remove(key);
+			} else {
+				active.put(key, n - 1);
+			}
+		}
+		LinkedList<File> list = markers.get(key);
+		if (list != null && !list.isEmpty()) {
+			list.removeFirst().delete();
+		}
+	}
+
+	/**
+	 * Refreshes the modification time of the markers of all active
+	 * connections of this JVM
+	 */
+	public synchronized void touchMarkers() {
+		long now = System.currentTimeMillis();
+		for (LinkedList<File> list : markers.values()) {
+			for (File marker : list) {
+				if (!marker.setLastModified(now)) {
+					LOG.debug("Could not touch load marker " + marker);
+				}
+			}
+		}
+	}
+
+	private void startHeartbeat() {
+		if (heartbeat != null)
+			return;
+		heartbeat = new Timer("HadoopDB host load heartbeat", true);
+		heartbeat.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				touchMarkers();
+			}
+		}, HEARTBEAT_PERIOD, HEARTBEAT_PERIOD);
+	}
+
+	/**
+	 * Adds a query latency sample (ms) of the host
+	 */
+	public synchronized void recordLatency(DBChunkHost host, long millis) {
+		String key = host.getHost();
+		Double avg = latency.get(key);
+		latency.put(key, avg == null ? millis : ALPHA * millis + (1 - ALPHA)
+				* avg);
+	}
+
+	/**
+	 * Returns the number of active connections to the host, across all JVMs
+	 * of this node if a load directory is configured
+	 */
+	public synchronized int getActive(DBChunkHost host) {
+		String key = host.getHost();
+		if (loadDir != null) {
+			File[] files = new File(loadDir, key).listFiles();
+			if (files != null) {
+				long now = System.currentTimeMillis();
+				int count = 0;
+				for (File f : files) {
+					if (now - f.lastModified() > STALE_MARKER_AGE) {
+						f.delete();
+					} else {
+						count++;
+					}
+				}
+				return count;
+			}
+		}
+		Integer n = active.get(key);
+		return n == null ? 0 : n;
+	}
+
+	/**
+	 * Returns the average recent query latency of the host (0 if unknown)
+	 */
+	public synchronized double getLatency(DBChunkHost host) {
+		Double avg = latency.get(host.getHost());
+		return avg == null ? 0 : avg;
+	}
+
+	/**
+	 * Orders hosts by load: active connections first, then latency
+	 */
+	public int compare(DBChunkHost h1, DBChunkHost h2) {
+		int a1 = getActive(h1);
+		int a2 = getActive(h2);
+		if (a1 != a2) {
+			return a1 < a2 ? -1 : 1;
+		}
+		return Double.compare(getLatency(h1), getLatency(h2));
+	}
+
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+/**
+ * Chooses the replica of a chunk a reader connects to when the chunk is not
+ * stored on the local host (or the local host has to be avoided). The policy
+ * is configured with {@link DBConst#DB_HOST_SELECTION_POLICY}; implementations
+ * may implement JobConfigurable to read job settings.
+ */
+public interface HostSelectionPolicy {
+
+	/**
+	 * Returns a host of the chunk, avoiding the given host (may be null) if
+	 * the chunk has other hosts.
+	 */
+	public DBChunkHost selectHost(DBChunk chunk, DBChunkHost avoid);
+
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent latency samples (in ms) and computes percentiles over
+ * them.
+ */
+public class LatencyTracker {
+
+	private long[] samples;
+	private int count = 0;
+	private int next = 0;
+
+	/**
+	 * @param window
+	 *            number of most recent samples kept
+	 */
+	public LatencyTracker(int window) {
+		samples = new long[window];
+	}
+
+	public synchronized void record(long latency) {
+		samples[next] = latency;
+		next = (next + 1) % samples.length;
+		if (count < samples.length) {
+			count++;
+		}
+	}
+
+	/**
+	 * Returns the number of samples currently kept
+	 */
+	public synchronized int size() {
+		return count;
+	}
+
+	/**
+	 * Returns the p-th percentile (0 < p <= 1) of the kept samples or 0 if
+	 * there are none.
+	 */
+	public synchronized long percentile(double p) {
+		if (count == 0) {
+			return 0;
+		}
+		long[] sorted = new long[count];
+		System.arraycopy(samples, 0, sorted, 0, count);
+		Arrays.sort(sorted);
+		int i = (int) Math.ceil(p * count) - 1;
+		return sorted[Math.max(0, Math.min(count - 1, i))];
+	}
+
+}
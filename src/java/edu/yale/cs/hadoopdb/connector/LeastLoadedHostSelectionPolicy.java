@@ -0,0 +1,53 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.util.List;
+
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.JobConfigurable;
+
+/**
+ * Chooses the replica with the lowest load as reported by
+ * {@link HostLoadTracker}: the fewest active reader connections, ties broken
+ * by the lower recent query latency. Remaining ties are broken randomly so
+ * that idle hosts are used evenly.
+ */
+public class LeastLoadedHostSelectionPolicy implements HostSelectionPolicy,
+		JobConfigurable {
+
+	protected HostLoadTracker tracker = HostLoadTracker.getInstance();
+
+	@Override
+	public void configure(JobConf conf) {
+		tracker.configure(conf);
+	}
+
+	@Override
+	public DBChunkHost selectHost(DBChunk chunk, DBChunkHost avoid) {
+		List<DBChunkHost> candidates = chunk.getCandidateHosts(avoid);
+		int offset = DBChunk.R.nextInt(candidates.size());
+		DBChunkHost best = null;
+		for (int i = 0; i < candidates.size(); i++) {
+			DBChunkHost host = candidates.get((offset + i) % candidates.size());
+			if (best == null || tracker.compare(host, best) < 0) {
+				best = host;
+			}
+		}
+		return best;
+	}
+
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * MySQL dialect. Connector/J reads the whole result into memory unless the
+ * statement is forward-only, read-only and has a fetch size of
+ * {@link DBConst#SQL_STREAMING_FETCH_SIZE}, in which case rows are streamed
+ * one at a time. If the connection URL enables server side cursors
+ * (useCursorFetch=true), the configured fetch size is used instead.
+ */
+public class MySQLDialect extends SQLDialect {
+
+	@Override
+	public String getName() {
+		return "MySQL";
+	}
+
+	/**
+	 * Streaming does not need a transaction, so auto-commit is left as is
+	 * (a long read-only transaction would only pin the snapshot).
+	 */
+	@Override
+	public void configureStreaming(Connection connection, Statement statement,
+			int fetchSize) throws SQLException {
+		statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+		if (usesCursorFetch(connection)) {
+			statement.setFetchSize(fetchSize);
+		} else {
+			statement.setFetchSize(DBConst.SQL_STREAMING_FETCH_SIZE);
+		}
+	}
+
+	private static boolean usesCursorFetch(Connection connection)
+			throws SQLException {
+		String url = connection.getMetaData().getURL();
+		return url != null
+				&& url.toLowerCase().contains("usecursorfetch=true");
+	}
+
+	@Override
+	public String limit(String sql, long limit, long offset) {
+		StringBuilder sb = new StringBuilder(sql);
+		sb.append(" LIMIT ").append(limit);
+		if (offset > 0) {
+			sb.append(" OFFSET ").append(offset);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * MySQL sorts NULLs first in ascending order already
+	 */
+	@Override
+	public String sortKey(String expr, boolean ascending) {
+		return expr + (ascending ? " ASC" : " DESC");
+	}
+
+	@Override
+	public String binarySortable(String expr) {
+		return "BINARY " + expr;
+	}
+
+	/**
+	 * || is a logical OR in MySQL
+	 */
+	@Override
+	public String concat(String... exprs) {
+		StringBuilder sb = new StringBuilder("CONCAT(");
+		for (int i = 0; i < exprs.length; i++) {
+			sb.append(i > 0 ? ", " : "").append(exprs[i]);
+		}
+		return sb.append(")").toString();
+	}
+
+	@Override
+	public String castToString(String expr) {
+		return "CAST(" + expr + " AS CHAR)";
+	}
+
+	@Override
+	public String quoteIdentifier(String identifier) {
+		return "`" + identifier.replace("`", "``") + "`";
+	}
+
+	@Override
+	public long tableRows(Connection connection, String relation)
+			throws SQLException {
+		return queryLong(connection,
+				"SELECT TABLE_ROWS FROM information_schema.TABLES "
+						+ "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = "
+						+ quoteLiteral(relation));
+	}
+
+	/**
+	 * Cheap ping handled by Connector/J without running a query
+	 */
+	@Override
+	public String getValidationQuery() {
+		return "/* ping */ SELECT 1";
+	}
+
+}
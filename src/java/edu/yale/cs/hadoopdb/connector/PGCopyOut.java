@@ -0,0 +1,67 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyOut;
+
+/**
+ * Running COPY ... TO STDOUT of a PostgreSQL connection. This is the only
+ * class referring to the PostgreSQL driver; {@link PGCopyResultSet} only
+ * loads it if the driver is on the classpath.
+ */
+class PGCopyOut {
+
+	private CopyOut copyOut;
+
+	private PGCopyOut(CopyOut copyOut) {
+		this.copyOut = copyOut;
+	}
+
+	/**
+	 * Returns true if the connection is a PostgreSQL connection
+	 */
+	static boolean supports(Connection connection) {
+		return connection instanceof PGConnection;
+	}
+
+	/**
+	 * Starts a COPY TO STDOUT statement on a PostgreSQL connection
+	 */
+	static PGCopyOut open(Connection connection, String copySql)
+			throws SQLException {
+		return new PGCopyOut(((PGConnection) connection).getCopyAPI()
+				.copyOut(copySql));
+	}
+
+	/**
+	 * Returns the next chunk of COPY data or null at the end of the data
+	 */
+	byte[] read() throws SQLException {
+		return copyOut.readFromCopy();
+	}
+
+	/**
+	 * Aborts the COPY so that the connection can be used again
+	 */
+	void cancel() throws SQLException {
+		copyOut.cancelCopy();
+	}
+
+}
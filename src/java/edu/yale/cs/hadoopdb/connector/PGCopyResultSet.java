@@ -0,0 +1,470 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.WeakHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Reads the result of a query through PostgreSQL's binary COPY protocol
+ * (COPY (query) TO STDOUT WITH BINARY) and decodes the tuple stream directly,
+ * avoiding the per-row overhead of the JDBC cursor path. Column types are
+ * taken from the query's prepared statement meta data. String values of
+ * non-text columns are formatted like the server's text output that the
+ * driver returns, so rows read through COPY and through JDBC are the same.
+ * The driver's COPY API is used through {@link PGCopyOut}, which is only
+ * loaded if the driver is on the classpath.
+ */
+public class PGCopyResultSet extends RowResultSet {
+
+	public static final Log LOG = LogFactory.getLog(PGCopyResultSet.class
+			.getName());
+
+	private static final byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y',
+			'\n', (byte) 0xff, '\r', '\n', 0 };
+
+	/**
+	 * 2000-01-01 00:00:00 UTC (PostgreSQL's epoch) in Java time
+	 */
+	private static final long PG_EPOCH_MILLIS = 946684800000L;
+	private static final long MILLIS_PER_DAY = 86400000L;
+
+	private static final int INT2 = 0;
+	private static final int INT4 = 1;
+	private static final int INT8 = 2;
+	private static final int FLOAT4 = 3;
+	private static final int FLOAT8 = 4;
+	private static final int BOOL = 5;
+	private static final int TEXT = 6;
+	private static final int DATE = 7;
+	private static final int TIMESTAMP = 8;
+	private static final int BYTEA = 9;
+
+	private PreparedStatement describe;
+	private PGCopyOut copyOut;
+	private DataInputStream in;
+	private int[] types;
+	private boolean finished = false;
+	// timestamps are int64 microseconds (or float8 seconds if off)
+	private boolean integerDatetimes = true;
+
+	/**
+	 * integer_datetimes setting of each connection (queried once)
+	 */
+	private static final Map<Connection, Boolean> INTEGER_DATETIMES = new WeakHashMap<Connection, Boolean>();
+
+	private static final boolean COPY_API_AVAILABLE = isCopyAPIAvailable();
+
+	private static boolean isCopyAPIAvailable() {
+		try {
+			Class.forName("org.postgresql.copy.CopyOut", false,
+					PGCopyResultSet.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Starts a binary COPY of the given query. Returns null if the connection
+	 * does not support COPY or the query returns column types the decoder
+	 * does not handle, in which case the caller should execute the query
+	 * through JDBC.
+	 *
+	 * @param statement
+	 *            statement returned by getStatement() (may be null)
+	 */
+	public static ResultSet open(Connection connection, Statement statement,
+			String sql) throws SQLException {
+
+		String query = sql.trim();
+		while (query.endsWith(";")) {
+			query = query.substring(0, query.length() - 1).trim();
+		}
+
+		PreparedStatement describe = connection.prepareStatement(query);
+		boolean opened = false;
+		try {
+			ResultSetMetaData metaData = describe.getMetaData();
+			int[] types = getTypes(metaData);
+			if (types == null) {
+				return null;
+			}
+
+			if (!COPY_API_AVAILABLE) {
+				LOG.info("PostgreSQL COPY API not available.");
+				return null;
+			}
+			if (!PGCopyOut.supports(connection)) {
+				LOG.info("Connection does not support COPY: "
+						+ connection.getClass().getName());
+				return null;
+			}
+
+			PGCopyResultSet rs = new PGCopyResultSet(metaData, statement,
+					describe, types);
+			for (int type : types) {
+				if (type == TIMESTAMP) {
+					rs.integerDatetimes = hasIntegerDatetimes(connection);
+					break;
+				}
+			}
+			rs.copyOut = PGCopyOut.open(connection, "COPY (" + query
+					+ ") TO STDOUT WITH BINARY");
+			try {
+				rs.in = new DataInputStream(new CopyInputStream(rs.copyOut));
+				rs.readHeader();
+			} catch (IOException e) {
+				rs.copyOut.cancel();
+				throw toSQLException(e);
+			}
+			opened = true;
+			return rs;
+		} finally {
+			if (!opened) {
+				describe.close();
+			}
+		}
+	}
+
+	/**
+	 * Maps result columns to decoders. Returns null if a type is not
+	 * supported.
+	 */
+	private static int[] getTypes(ResultSetMetaData metaData)
+			throws SQLException {
+		int[] types = new int[metaData.getColumnCount()];
+		for (int i = 0; i < types.length; i++) {
+			String type = metaData.getColumnTypeName(i + 1).toLowerCase();
+			if (type.equals("int2")) {
+				types[i] = INT2;
+			} else if (type.equals("int4") || type.equals("serial")) {
+				types[i] = INT4;
+			} else if (type.equals("int8") || type.equals("bigserial")) {
+				types[i] = INT8;
+			} else if (type.equals("float4")) {
+				types[i] = FLOAT4;
+			} else if (type.equals("float8")) {
+				types[i] = FLOAT8;
+			} else if (type.equals("bool")) {
+				types[i] = BOOL;
+			} else if (type.equals("text") || type.equals("varchar")
+					|| type.equals("bpchar") || type.equals("name")) {
+				types[i] = TEXT;
+			} else if (type.equals("date")) {
+				types[i] = DATE;
+			} else if (type.equals("timestamp")) {
+				types[i] = TIMESTAMP;
+			} else if (type.equals("bytea")) {
+				types[i] = BYTEA;
+			} else {
+				LOG.info("Column type " + type
+						+ " is not supported by binary COPY reader.");
+				return null;
+			}
+		}
+		return types;
+	}
+
+	/**
+	 * Returns true if the server stores timestamps as int64 microseconds
+	 * (integer_datetimes, the default since PostgreSQL 8.4) rather than as
+	 * float8 seconds. The setting is a compile time option of the server,
+	 * so it is queried once per connection.
+	 */
+	private static boolean hasIntegerDatetimes(Connection connection)
+			throws SQLException {
+		synchronized (INTEGER_DATETIMES) {
+			Boolean cached = INTEGER_DATETIMES.get(connection);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		boolean integer = true;
+		Statement st = connection.createStatement();
+		try {
+			ResultSet rs = st.executeQuery("SHOW integer_datetimes");
+			if (rs.next()) {
+				integer = "on".equalsIgnoreCase(rs.getString(1));
+			}
+			rs.close();
+		} finally {
+			st.close();
+		}
+		synchronized (INTEGER_DATETIMES) {
+			INTEGER_DATETIMES.put(connection, integer);
+		}
+		return integer;
+	}
+
+	private PGCopyResultSet(ResultSetMetaData metaData, Statement statement,
+			PreparedStatement describe, int[] types) throws SQLException {
+		super(getLabels(metaData), metaData, statement);
+		this.describe = describe;
+		this.types = types;
+	}
+
+	private void readHeader() throws IOException {
+		byte[] signature = new byte[SIGNATURE.length];
+		in.readFully(signature);
+		for (int i = 0; i < SIGNATURE.length; i++) {
+			if (signature[i] != SIGNATURE[i]) {
+				throw new IOException("Invalid binary COPY signature.");
+			}
+		}
+		in.readInt(); // flags
+		int extension = in.readInt();
+		in.skipBytes(extension);
+	}
+
+	@Override
+	protected Object[] nextRow() throws SQLException {
+		if (finished) {
+			return null;
+		}
+		try {
+			int fields = in.readShort();
+			if (fields == -1) {
+				// read up to the end of the COPY so the connection is usable
+				while (in.read() != -1) {
+				}
+				finished = true;
+				return null;
+			}
+			if (fields != types.length) {
+				throw new SQLException("Unexpected number of fields: "
+						+ fields + " (expected " + types.length + ")");
+			}
+			Object[] row = new Object[fields];
+			for (int i = 0; i < fields; i++) {
+				int length = in.readInt();
+				if (length >= 0) {
+					row[i] = decode(types[i], length);
+				}
+			}
+			return row;
+		} catch (IOException e) {
+			throw toSQLException(e);
+		}
+	}
+
+	private Object decode(int type, int length) throws IOException {
+		switch (type) {
+		case INT2:
+			return in.readShort();
+		case INT4:
+			return in.readInt();
+		case INT8:
+			return in.readLong();
+		case FLOAT4:
+			return in.readFloat();
+		case FLOAT8:
+			return in.readDouble();
+		case BOOL:
+			return in.readByte() != 0;
+		case DATE: {
+			long millis = PG_EPOCH_MILLIS + in.readInt() * MILLIS_PER_DAY;
+			return new java.sql.Date(toLocal(millis));
+		}
+		case TIMESTAMP: {
+			long micros = integerDatetimes ? in.readLong() : (long) Math
+					.floor(in.readDouble() * 1000000 + 0.5);
+			long millis = PG_EPOCH_MILLIS + floorDiv(micros, 1000);
+			Timestamp ts = new Timestamp(toLocal(millis));
+			ts.setNanos((int) (((micros % 1000000) + 1000000) % 1000000) * 1000);
+			return ts;
+		}
+		default:
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			if (type == TEXT) {
+				return new String(bytes, "UTF-8");
+			}
+			return bytes;
+		}
+	}
+
+	/**
+	 * Dates and timestamps without time zone are wall clock values; JDBC
+	 * represents them in the JVM's default time zone.
+	 */
+	private static long toLocal(long utcMillis) {
+		return utcMillis - TimeZone.getDefault().getOffset(utcMillis);
+	}
+
+	private static long floorDiv(long a, long b) {
+		long q = a / b;
+		return (a % b != 0 && (a < 0)) ? q - 1 : q;
+	}
+
+	/**
+	 * Formats values like PostgreSQL's text output (with the defaults
+	 * bytea_output = hex and shortest exact float output), which is what the
+	 * driver's getString returns
+	 */
+	@Override
+	protected String formatString(int columnIndex, Object value) {
+		switch (types[columnIndex - 1]) {
+		case FLOAT4:
+			return formatFloat(value.toString(), 6);
+		case FLOAT8:
+			return formatFloat(value.toString(), 15);
+		case BOOL:
+			return ((Boolean) value) ? "t" : "f";
+		case TIMESTAMP: {
+			String s = value.toString();
+			return s.endsWith(".0") ? s.substring(0, s.length() - 2) : s;
+		}
+		case BYTEA: {
+			byte[] bytes = (byte[]) value;
+			StringBuilder sb = new StringBuilder(2 + 2 * bytes.length);
+			sb.append("\\x");
+			for (byte b : bytes) {
+				sb.append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+			}
+			return sb.toString();
+		}
+		default:
+			return value.toString();
+		}
+	}
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Formats the shortest digits of a float (Java's toString) the way
+	 * PostgreSQL does: plain notation, or exponential notation with a two
+	 * digit exponent if the decimal exponent is below -4 or at least the
+	 * type's precision (e.g. 10000000, 0.25, 1e+15, 1.5e-05)
+	 */
+	private static String formatFloat(String javaString, int precision) {
+		if (javaString.equals("NaN") || javaString.endsWith("Infinity")) {
+			return javaString;
+		}
+		BigDecimal d = new BigDecimal(javaString);
+		if (d.signum() == 0) {
+			return javaString.startsWith("-") ? "-0" : "0";
+		}
+		d = d.stripTrailingZeros();
+		int exponent = d.precision() - d.scale() - 1;
+		if (exponent >= -4 && exponent < precision) {
+			return d.toPlainString();
+		}
+		String digits = d.unscaledValue().abs().toString();
+		StringBuilder sb = new StringBuilder();
+		if (d.signum() < 0) {
+			sb.append('-');
+		}
+		sb.append(digits.charAt(0));
+		if (digits.length() > 1) {
+			sb.append('.').append(digits, 1, digits.length());
+		}
+		sb.append(exponent < 0 ? "e-" : "e+");
+		int abs = Math.abs(exponent);
+		if (abs < 10) {
+			sb.append('0');
+		}
+		return sb.append(abs).toString();
+	}
+
+	/**
+	 * Cancels an unfinished COPY so that the connection can be reused.
+	 */
+	@Override
+	protected void closeRows() throws SQLException {
+		try {
+			if (!finished) {
+				try {
+					copyOut.cancel();
+				} catch (SQLException e) {
+					LOG.debug("Error while cancelling COPY.", e);
+				}
+			}
+		} finally {
+			describe.close();
+		}
+	}
+
+	/**
+	 * InputStream over the byte arrays returned by the COPY
+	 */
+	private static class CopyInputStream extends InputStream {
+
+		private PGCopyOut copyOut;
+		private byte[] buffer;
+		private int offset;
+		private boolean eof = false;
+
+		public CopyInputStream(PGCopyOut copyOut) {
+			this.copyOut = copyOut;
+		}
+
+		private boolean fill() throws IOException {
+			while (!eof && (buffer == null || offset == buffer.length)) {
+				try {
+					buffer = copyOut.read();
+				} catch (SQLException e) {
+					IOException ex = new IOException("COPY failed: " + e);
+					ex.initCause(e);
+					throw ex;
+				}
+				offset = 0;
+				if (buffer == null) {
+					eof = true;
+				}
+			}
+			return !eof;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!fill()) {
+				return -1;
+			}
+			return buffer[offset++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (!fill()) {
+				return -1;
+			}
+			int n = Math.min(len, buffer.length - offset);
+			System.arraycopy(buffer, offset, b, off, n);
+			offset += n;
+			return n;
+		}
+	}
+
+}
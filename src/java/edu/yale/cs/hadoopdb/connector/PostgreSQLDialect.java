@@ -0,0 +1,98 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PostgreSQL dialect. The driver only uses a server side cursor (instead of
+ * reading the whole result) when auto-commit is off and a fetch size is set.
+ * Results can be exported through binary COPY ({@link PGCopyResultSet}).
+ */
+public class PostgreSQLDialect extends SQLDialect {
+
+	private static final Pattern EXPLAIN_ROWS = Pattern
+			.compile("rows=(\\d+)");
+
+	@Override
+	public String getName() {
+		return "PostgreSQL";
+	}
+
+	@Override
+	public boolean supportsExport() {
+		return true;
+	}
+
+	@Override
+	public ResultSet openExport(Connection connection, Statement statement,
+			String sql) throws SQLException {
+		return PGCopyResultSet.open(connection, statement, sql);
+	}
+
+	@Override
+	public String limit(String sql, long limit, long offset) {
+		StringBuilder sb = new StringBuilder(sql);
+		sb.append(" LIMIT ").append(limit);
+		if (offset > 0) {
+			sb.append(" OFFSET ").append(offset);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * The "C" collation compares bytes, i.e. code points in UTF-8
+	 */
+	@Override
+	public String binarySortable(String expr) {
+		return "CAST(" + expr + " AS TEXT) COLLATE \"C\"";
+	}
+
+	/**
+	 * Returns the row estimate of the top plan node reported by EXPLAIN
+	 */
+	@Override
+	public long explainRows(Connection connection, String sql)
+			throws SQLException {
+		Statement statement = connection.createStatement();
+		try {
+			ResultSet rs = statement.executeQuery("EXPLAIN " + sql);
+			if (rs.next()) {
+				Matcher m = EXPLAIN_ROWS.matcher(rs.getString(1));
+				if (m.find()) {
+					return Long.parseLong(m.group(1));
+				}
+			}
+			return 0;
+		} finally {
+			statement.close();
+		}
+	}
+
+	@Override
+	public long tableRows(Connection connection, String relation)
+			throws SQLException {
+		return queryLong(connection,
+				"SELECT reltuples FROM pg_class WHERE relname = "
+						+ quoteLiteral(relation.toLowerCase()));
+	}
+
+}
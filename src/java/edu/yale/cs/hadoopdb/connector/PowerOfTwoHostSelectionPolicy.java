@@ -0,0 +1,44 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.util.List;
+
+/**
+ * Power-of-two-choices: samples two random replicas and chooses the less
+ * loaded one (see {@link HostLoadTracker}). Avoids herding all readers onto
+ * the single least loaded host when load information is stale.
+ */
+public class PowerOfTwoHostSelectionPolicy extends
+		LeastLoadedHostSelectionPolicy {
+
+	@Override
+	public DBChunkHost selectHost(DBChunk chunk, DBChunkHost avoid) {
+		List<DBChunkHost> candidates = chunk.getCandidateHosts(avoid);
+		if (candidates.size() <= 2) {
+			return super.selectHost(chunk, avoid);
+		}
+		int i = DBChunk.R.nextInt(candidates.size());
+		int j = DBChunk.R.nextInt(candidates.size() - 1);
+		if (j >= i) {
+			j++;
+		}
+		DBChunkHost first = candidates.get(i);
+		DBChunkHost second = candidates.get(j);
+		return tracker.compare(first, second) <= 0 ? first : second;
+	}
+
+}
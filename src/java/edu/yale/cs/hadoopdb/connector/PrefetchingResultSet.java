@@ -0,0 +1,240 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * ResultSet that drains a JDBC ResultSet on a background thread. Rows are
+ * decoded into batches which are handed to the consumer (the map task)
+ * through a bounded queue, so that database fetch round trips overlap with
+ * map processing. The fetcher blocks when the queue is full (backpressure),
+ * errors are rethrown from next() once all rows fetched before the error have
+ * been consumed, and close() cancels a running query. The source is only
+ * closed once the fetcher has stopped using it.
+ */
+public class PrefetchingResultSet extends RowResultSet implements Runnable {
+
+	public static final Log LOG = LogFactory.getLog(PrefetchingResultSet.class
+			.getName());
+
+	/**
+	 * Marks the end of the stream (also after an error)
+	 */
+	private static final Object[][] END = new Object[0][];
+
+	/**
+	 * Interval (ms) in which a blocked fetcher checks for cancellation
+	 */
+	private static final long POLL_INTERVAL = 100;
+
+	private ResultSet source;
+	private int columns;
+	private int batchSize;
+
+	private BlockingQueue<Object[][]> queue;
+	private Thread fetcher;
+	private volatile boolean cancelled = false;
+	private volatile boolean finished = false;
+	private volatile SQLException error;
+	// set by the fetcher when it stops (guarded by this)
+	private boolean exited = false;
+	// the fetcher closes the source when it stops (guarded by this)
+	private boolean closeOnExit = false;
+
+	private Object[][] batch;
+	private int batchPos = 0;
+
+	/**
+	 * Wraps a ResultSet and starts prefetching. Returns the new ResultSet.
+	 *
+	 * @param batchSize
+	 *            number of rows per batch
+	 * @param capacity
+	 *            maximum number of batches buffered ahead of the consumer
+	 */
+	public static ResultSet wrap(ResultSet source, Statement statement,
+			int batchSize, int capacity, String name) throws SQLException {
+		PrefetchingResultSet prs = new PrefetchingResultSet(source, statement,
+				batchSize, capacity);
+		prs.start(name);
+		return prs;
+	}
+
+	protected PrefetchingResultSet(ResultSet source, Statement statement,
+			int batchSize, int capacity) throws SQLException {
+		super(getLabels(source.getMetaData()), source.getMetaData(), statement);
+		this.source = source;
+		this.columns = metaData.getColumnCount();
+		this.batchSize = Math.max(1, batchSize);
+		this.queue = new ArrayBlockingQueue<Object[][]>(Math.max(1, capacity));
+	}
+
+	private void start(String name) {
+		fetcher = new Thread(this, "HadoopDB prefetcher " + name);
+		fetcher.setDaemon(true);
+		fetcher.start();
+	}
+
+	/**
+	 * Fetcher loop
+	 */
+	@Override
+	public void run() {
+		try {
+			boolean more = true;
+			while (more && !cancelled) {
+				Object[][] rows = new Object[batchSize][];
+				int n = 0;
+				while (n < batchSize && (more = source.next())) {
+					Object[] row = new Object[columns];
+					for (int i = 0; i < columns; i++) {
+						row[i] = source.getObject(i + 1);
+					}
+					rows[n++] = row;
+				}
+				if (n == 0) {
+					break;
+				}
+				if (n < batchSize) {
+					Object[][] last = new Object[n][];
+					System.arraycopy(rows, 0, last, 0, n);
+					rows = last;
+				}
+				if (!put(rows)) {
+					return;
+				}
+			}
+		} catch (SQLException e) {
+			if (!cancelled) {
+				error = e;
+			}
+		} catch (RuntimeException e) {
+			SQLException ex = new SQLException("Prefetching failed: " + e);
+			ex.initCause(e);
+			error = ex;
+		} finally {
+			put(END);
+			boolean close;
+			synchronized (this) {
+				exited = true;
+				close = closeOnExit;
+			}
+			if (close) {
+				closeSource();
+			}
+		}
+	}
+
+	/**
+	 * Blocks until the batch is queued or the reader is cancelled
+	 */
+	private boolean put(Object[][] rows) {
+		try {
+			while (!cancelled) {
+				if (queue.offer(rows, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+
+	@Override
+	protected Object[] nextRow() throws SQLException {
+		if (finished) {
+			return null;
+		}
+		if (batch == null || batchPos == batch.length) {
+			try {
+				batch = queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for rows.");
+			}
+			batchPos = 0;
+			if (batch == END) {
+				finished = true;
+				batch = null;
+				if (error != null) {
+					SQLException e = new SQLException("Error while fetching rows: "
+							+ error.getMessage(), error.getSQLState());
+					e.initCause(error);
+					throw e;
+				}
+				return null;
+			}
+		}
+		Object[] row = batch[batchPos];
+		batch[batchPos++] = null;
+		return row;
+	}
+
+	/**
+	 * Stops the fetcher. If the query is still running it is cancelled on the
+	 * server, then the fetcher is unblocked and the source is closed (by the
+	 * fetcher itself if it does not stop in time).
+	 */
+	@Override
+	protected void closeRows() throws SQLException {
+		cancelled = true;
+		if (fetcher.isAlive()) {
+			if (statement != null) {
+				try {
+					statement.cancel();
+				} catch (SQLException e) {
+					LOG.debug("Error while cancelling statement.", e);
+				}
+			}
+			queue.clear();
+			try {
+				fetcher.join(10 * POLL_INTERVAL);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		queue.clear();
+		batch = null;
+		synchronized (this) {
+			if (!exited) {
+				LOG.warn("Prefetching thread did not stop in time, "
+						+ "it will close the results when it does.");
+				closeOnExit = true;
+				return;
+			}
+		}
+		source.close();
+	}
+
+	private void closeSource() {
+		try {
+			source.close();
+		} catch (SQLException e) {
+			LOG.debug("Error while closing prefetched results.", e);
+		}
+	}
+
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Execution of a chunk query against one replica on a separate thread, used
+ * for hedged reads. An attempt is finished once the query returned its first
+ * row (or no rows) or failed. Attempts that lost the race are abandoned: the
+ * running query is cancelled and the attempt's connection is discarded
+ * (see {@link DBConnectionPool#discardConnection}) as soon as its thread has
+ * stopped.
+ */
+public class QueryAttempt implements Runnable {
+
+	public static final Log LOG = LogFactory.getLog(QueryAttempt.class
+			.getName());
+
+	private DBChunkHost host;
+	private Connection connection;
+	private Statement statement;
+	private String sql;
+	private Object lock;
+
+	private ResultSet results;
+	private boolean hasRow = false;
+	private SQLException error;
+	private boolean done = false;
+	private boolean abandoned = false;
+	private long startTime;
+	private long firstRowTime;
+
+	/**
+	 * @param lock
+	 *            monitor notified when the attempt finishes (shared by
+	 *            competing attempts)
+	 */
+	public QueryAttempt(DBChunkHost host, Connection connection,
+			Statement statement, String sql, Object lock) {
+		this.host = host;
+		this.connection = connection;
+		this.statement = statement;
+		this.sql = sql;
+		this.lock = lock;
+	}
+
+	public void start() {
+		startTime = System.currentTimeMillis();
+		Thread t = new Thread(this, "HadoopDB query on " + host.getHost());
+		t.setDaemon(true);
+		t.start();
+	}
+
+	@Override
+	public void run() {
+		ResultSet rs = null;
+		SQLException e = null;
+		boolean row = false;
+		try {
+			rs = statement.executeQuery(sql);
+			row = rs.next();
+		} catch (SQLException ex) {
+			e = ex;
+		}
+
+		boolean cleanup;
+		synchronized (lock) {
+			results = rs;
+			hasRow = row;
+			error = e;
+			firstRowTime = System.currentTimeMillis();
+			done = true;
+			cleanup = abandoned;
+			lock.notifyAll();
+		}
+		if (cleanup) {
+			close();
+		}
+	}
+
+	/**
+	 * Returns true if the attempt has finished (the caller has to hold the
+	 * lock)
+	 */
+	public boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * Returns true if the attempt finished without an error (the caller has
+	 * to hold the lock)
+	 */
+	public boolean succeeded() {
+		return done && error == null;
+	}
+
+	public SQLException getError() {
+		return error;
+	}
+
+	public DBChunkHost getHost() {
+		return host;
+	}
+
+	public Connection getConnection() {
+		return connection;
+	}
+
+	public Statement getStatement() {
+		return statement;
+	}
+
+	/**
+	 * Returns the time from starting the query until its first row was
+	 * available
+	 */
+	public long getTimeToFirstRow() {
+		return firstRowTime - startTime;
+	}
+
+	/**
+	 * Returns the time since the query was issued
+	 */
+	public long getElapsedTime() {
+		return System.currentTimeMillis() - startTime;
+	}
+
+	/**
+	 * Returns the results of a successful attempt, positioned before the first
+	 * row (the row already fetched by the attempt is returned by the first
+	 * call to next()).
+	 */
+	public ResultSet getResults() {
+		if (!hasRow) {
+			return results;
+		}
+		return new DelegatingResultSet(results) {
+			private boolean first = true;
+
+			@Override
+			public boolean next() throws SQLException {
+				if (first) {
+					first = false;
+					return true;
+				}
+				return results.next();
+			}
+		};
+	}
+
+	/**
+	 * Cancels the query and closes the connection once the attempt's thread
+	 * has finished.
+	 */
+	public void abandon() {
+		boolean finished;
+		synchronized (lock) {
+			abandoned = true;
+			finished = done;
+		}
+		if (finished) {
+			close();
+		} else {
+			try {
+				statement.cancel();
+			} catch (SQLException e) {
+				LOG.debug("Error while cancelling query on " + host.getHost(),
+						e);
+			}
+		}
+	}
+
+	private void close() {
+		try {
+			if (results != null)
+				results.close();
+			statement.close();
+		} catch (SQLException e) {
+			LOG.debug("Error while closing abandoned query.", e);
+		}
+		// the connection may still be busy cancelling, so it is not reused
+		DBConnectionPool.getInstance().discardConnection(host, connection);
+	}
+
+}
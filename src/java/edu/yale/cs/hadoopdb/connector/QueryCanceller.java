@@ -0,0 +1,151 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Cancels the queries of record readers that will not consume their results
+ * any more, so that chunk databases do not keep executing queries of killed
+ * or stuck tasks. Registered readers are cancelled
+ * <ul>
+ * <li>by a JVM shutdown hook (a killed task attempt's JVM is terminated),</li>
+ * <li>by a watchdog if the reader has not fetched a row for longer than its
+ * idle timeout ({@link DBConst#DB_CANCEL_IDLE_TIMEOUT}).</li>
+ * </ul>
+ */
+public class QueryCanceller {
+
+	public static final Log LOG = LogFactory.getLog(QueryCanceller.class
+			.getName());
+
+	private static QueryCanceller singleton;
+
+	public static synchronized QueryCanceller getInstance() {
+		if (singleton == null)
+			singleton = new QueryCanceller();
+		return singleton;
+	}
+
+	/**
+	 * Registration of a reader with the time of its last activity
+	 */
+	public static class Registration {
+		private AbstractDBRecordReader reader;
+		private long idleTimeout;
+		// 0 until the query has returned (query execution is not idle time)
+		private volatile long lastActivity = 0;
+
+		private Registration(AbstractDBRecordReader reader, long idleTimeout) {
+			this.reader = reader;
+			this.idleTimeout = idleTimeout;
+		}
+
+		/**
+		 * Records that the reader's consumer is still pulling rows
+		 */
+		public void touch() {
+			lastActivity = System.currentTimeMillis();
+		}
+	}
+
+	private Map<AbstractDBRecordReader, Registration> readers = new HashMap<AbstractDBRecordReader, Registration>();
+	private Timer watchdog;
+	private boolean hookInstalled = false;
+
+	private QueryCanceller() {
+	}
+
+	/**
+	 * Registers a reader whose query is running
+	 * 
+	 * @param idleTimeout
+	 *            time (ms) without fetched rows after which the query is
+	 *            cancelled (0 to disable)
+	 */
+	public synchronized Registration register(AbstractDBRecordReader reader,
+			long idleTimeout) {
+		Registration r = new Registration(reader, idleTimeout);
+		readers.put(reader, r);
+		installShutdownHook();
+		if (idleTimeout > 0) {
+			startWatchdog(idleTimeout);
+		}
+		return r;
+	}
+
+	public synchronized void unregister(AbstractDBRecordReader reader) {
+		readers.remove(reader);
+	}
+
+	private synchronized List<Registration> getRegistrations() {
+		return new ArrayList<Registration>(readers.values());
+	}
+
+	private void installShutdownHook() {
+		if (hookInstalled)
+			return;
+		Runtime.getRuntime().addShutdownHook(
+				new Thread("HadoopDB query canceller") {
+					@Override
+					public void run() {
+						for (Registration r : getRegistrations()) {
+							LOG.info("Cancelling query on shutdown.");
+							r.reader.cancelQuery(true);
+						}
+					}
+				});
+		hookInstalled = true;
+	}
+
+	private void startWatchdog(long idleTimeout) {
+		if (watchdog != null)
+			return;
+		long period = Math.max(1000, Math.min(60000, idleTimeout / 4));
+		watchdog = new Timer("HadoopDB query watchdog", true);
+		watchdog.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				checkIdle();
+			}
+		}, period, period);
+	}
+
+	/**
+	 * Cancels queries of readers idle for longer than their timeout
+	 */
+	public void checkIdle() {
+		long now = System.currentTimeMillis();
+		for (Registration r : getRegistrations()) {
+			if (r.idleTimeout > 0 && r.lastActivity > 0
+					&& now - r.lastActivity > r.idleTimeout) {
+				LOG.warn("No rows fetched for " + (now - r.lastActivity)
+						+ " ms, cancelling query.");
+				unregister(r.reader);
+				r.reader.cancelQuery(false);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,1136 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Forward-only, read-only {@link ResultSet} over rows that have already been
+ * decoded into Object arrays. Record readers and {@link DBWritable} value
+ * classes keep using the plain JDBC API while rows are produced by something
+ * other than the driver's cursor (e.g. a prefetching thread). Subclasses
+ * provide the rows through {@link #nextRow()}. The typed getters read the
+ * decoded values directly (an Integer column is returned by getInt without
+ * any conversion); other combinations follow the usual JDBC conversion
+ * rules. Scrolling, streams, LOBs and updates are not supported.
+ */
+public abstract class RowResultSet implements ResultSet {
+
+	protected ResultSetMetaData metaData;
+	protected Statement statement;
+	protected Map<String, Integer> labelIndexMap = new HashMap<String, Integer>();
+
+	private Object[] current;
+	private boolean wasNull = false;
+	private boolean closed = false;
+	private int row = 0;
+
+	/**
+	 * @param labels
+	 *            column labels in result order
+	 * @param metaData
+	 *            meta data returned by getMetaData() (may be null)
+	 * @param statement
+	 *            statement returned by getStatement() (may be null)
+	 */
+	protected RowResultSet(String[] labels, ResultSetMetaData metaData,
+			Statement statement) {
+		this.metaData = metaData;
+		this.statement = statement;
+		for (int i = 0; i < labels.length; i++) {
+			String label = labels[i].toLowerCase();
+			if (!labelIndexMap.containsKey(label)) {
+				labelIndexMap.put(label, i + 1);
+			}
+		}
+	}
+
+	/**
+	 * Returns the column labels of a JDBC result
+	 */
+	protected static String[] getLabels(ResultSetMetaData metaData)
+			throws SQLException {
+		String[] labels = new String[metaData.getColumnCount()];
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = metaData.getColumnLabel(i + 1);
+		}
+		return labels;
+	}
+
+	/**
+	 * Returns the next decoded row or null if there are no more rows
+	 */
+	protected abstract Object[] nextRow() throws SQLException;
+
+	/**
+	 * Releases resources used to produce rows
+	 */
+	protected abstract void closeRows() throws SQLException;
+
+	/**
+	 * Returns the string value of a decoded non-null value that is not a
+	 * String (subclasses may format values the way their driver does)
+	 */
+	protected String formatString(int columnIndex, Object value) {
+		if (value instanceof byte[]) {
+			return utf8((byte[]) value);
+		}
+		return value.toString();
+	}
+
+	public boolean next() throws SQLException {
+		if (closed) {
+			throw new SQLException("ResultSet is closed.");
+		}
+		current = nextRow();
+		if (current != null) {
+			row++;
+			return true;
+		}
+		return false;
+	}
+
+	public void close() throws SQLException {
+		if (!closed) {
+			closed = true;
+			current = null;
+			closeRows();
+		}
+	}
+
+	public boolean isClosed() throws SQLException {
+		return closed;
+	}
+
+	public boolean wasNull() throws SQLException {
+		return wasNull;
+	}
+
+	public int findColumn(String columnLabel) throws SQLException {
+		Integer index = labelIndexMap.get(columnLabel.toLowerCase());
+		if (index == null) {
+			throw new SQLException("The column name " + columnLabel
+					+ " was not found in this ResultSet.");
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the decoded value of a column of the current row
+	 */
+	private Object getValue(int columnIndex) throws SQLException {
+		if (current == null) {
+			throw new SQLException("ResultSet not positioned on a row.");
+		}
+		if (columnIndex < 1 || columnIndex > current.length) {
+			throw new SQLException("Column index out of range: "
+					+ columnIndex);
+		}
+		Object value = current[columnIndex - 1];
+		wasNull = (value == null);
+		return value;
+	}
+
+	/**
+	 * Returns a value as a number for the numeric getters (0 for SQL NULL)
+	 */
+	private static Number toNumber(Object value) throws SQLException {
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof Number) {
+			return (Number) value;
+		}
+		if (value instanceof Boolean) {
+			return ((Boolean) value) ? 1 : 0;
+		}
+		try {
+			return new BigDecimal(value.toString().trim());
+		} catch (NumberFormatException e) {
+			throw new SQLException("Bad value for a numeric type: " + value);
+		}
+	}
+
+	public String getString(int columnIndex) throws SQLException {
+		Object value = getValue(columnIndex);
+		if (value == null || value instanceof String) {
+			return (String) value;
+		}
+		return formatString(columnIndex, value);
+	}
+
+	public boolean getBoolean(int columnIndex) throws SQLException {
+		Object value = getValue(columnIndex);
+		if (value instanceof Boolean) {
+			return (Boolean) value;
+		}
+		if (value == null) {
+			return false;
+		}
+		if (value instanceof Number) {
+			return ((Number) value).intValue() != 0;
+		}
+		String s = value.toString().trim();
+		return s.equalsIgnoreCase("t") || s.equalsIgnoreCase("true")
+				|| s.equals("1");
+	}
+
+	public byte getByte(int columnIndex) throws SQLException {
+		return toNumber(getValue(columnIndex)).byteValue();
+	}
+
+	public short getShort(int columnIndex) throws SQLException {
+		Object value = getValue(columnIndex);
+		if (value instanceof Short) {
+			return (Short) value;
+		}
+		return toNumber(value).shortValue();
+	}
+
+	public int getInt(int columnIndex) throws SQLException {
+		Object value = getValue(columnIndex);
+		if (value instanceof Integer) {
+			return (Integer) value;
+		}
+		return toNumber(value).intValue();
+	}
+
+	public long getLong(int columnIndex) throws SQLException {
+		Object value = getValue(columnIndex);
+		if (value instanceof Long) {
+			return (Long) value;
+		}
+		return toNumber(value).longValue();
+	}
+
+	public float getFloat(int columnIndex) throws SQLException {
+		Object value = getValue(columnIndex);
+		if (value instanceof Float) {
+			return (Float) value;
+		}
+		return toNumber(value).floatValue();
+	}
+
+	public double getDouble(int columnIndex) throws SQLException {
+		Object value = getValue(columnIndex);
+		if (value instanceof Double) {
+			return (Double) value;
+		}
+		return toNumber(value).doubleValue();
+	}
+
+	public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+		Object value = getValue(columnIndex);
+		if (value == null || value instanceof BigDecimal) {
+			return (BigDecimal) value;
+		}
+		try {
+			return new BigDecimal(value.toString().trim());
+		} catch (NumberFormatException e) {
+			throw new SQLException("Bad value for type BigDecimal: " + value);
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	public BigDecimal getBigDecimal(int columnIndex, int scale)
+			throws SQLException {
+		BigDecimal value = getBigDecimal(columnIndex);
+		return value == null ? null : value.setScale(scale,
+				BigDecimal.ROUND_HALF_UP);
+	}
+
+	public byte[] getBytes(int columnIndex) throws SQLException {
+		Object value = getValue(columnIndex);
+		if (value == null || value instanceof byte[]) {
+			return (byte[]) value;
+		}
+		try {
+			return value.toString().getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public Date getDate(int columnIndex) throws SQLException {
+		Object value = getValue(columnIndex);
+		if (value == null || value instanceof Date) {
+			return (Date) value;
+		}
+		if (value instanceof java.util.Date) {
+			return new Date(((java.util.Date) value).getTime());
+		}
+		try {
+			return Date.valueOf(value.toString().trim());
+		} catch (IllegalArgumentException e) {
+			throw new SQLException("Bad value for type date: " + value);
+		}
+	}
+
+	public Time getTime(int columnIndex) throws SQLException {
+		Object value = getValue(columnIndex);
+		if (value == null || value instanceof Time) {
+			return (Time) value;
+		}
+		if (value instanceof java.util.Date) {
+			return new Time(((java.util.Date) value).getTime());
+		}
+		try {
+			return Time.valueOf(value.toString().trim());
+		} catch (IllegalArgumentException e) {
+			throw new SQLException("Bad value for type time: " + value);
+		}
+	}
+
+	public Timestamp getTimestamp(int columnIndex) throws SQLException {
+		Object value = getValue(columnIndex);
+		if (value == null || value instanceof Timestamp) {
+			return (Timestamp) value;
+		}
+		if (value instanceof java.util.Date) {
+			return new Timestamp(((java.util.Date) value).getTime());
+		}
+		try {
+			return Timestamp.valueOf(value.toString().trim());
+		} catch (IllegalArgumentException e) {
+			throw new SQLException("Bad value for type timestamp: " + value);
+		}
+	}
+
+	public Object getObject(int columnIndex) throws SQLException {
+		return getValue(columnIndex);
+	}
+
+	public String getNString(int columnIndex) throws SQLException {
+		return getString(columnIndex);
+	}
+
+	/**
+	 * Decoded dates and times are wall clock values in the JVM's time zone,
+	 * the calendar is ignored
+	 */
+	public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+		return getDate(columnIndex);
+	}
+
+	public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+		return getTime(columnIndex);
+	}
+
+	public Timestamp getTimestamp(int columnIndex, Calendar cal)
+			throws SQLException {
+		return getTimestamp(columnIndex);
+	}
+
+	public Object getObject(int columnIndex, Map<String, Class<?>> map)
+			throws SQLException {
+		return getObject(columnIndex);
+	}
+
+	public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+		Object value;
+		if (type == String.class) {
+			value = getString(columnIndex);
+		} else if (type == BigDecimal.class) {
+			value = getBigDecimal(columnIndex);
+		} else if (type == byte[].class) {
+			value = getBytes(columnIndex);
+		} else if (type == Date.class) {
+			value = getDate(columnIndex);
+		} else if (type == Time.class) {
+			value = getTime(columnIndex);
+		} else if (type == Timestamp.class) {
+			value = getTimestamp(columnIndex);
+		} else {
+			value = getValue(columnIndex);
+			if (value != null && !type.isInstance(value)) {
+				throw new SQLFeatureNotSupportedException("Conversion of "
+						+ value.getClass().getName() + " to "
+						+ type.getName() + " is not supported.");
+			}
+		}
+		return type.cast(value);
+	}
+
+	public String getString(String columnLabel) throws SQLException {
+		return getString(findColumn(columnLabel));
+	}
+
+	public boolean getBoolean(String columnLabel) throws SQLException {
+		return getBoolean(findColumn(columnLabel));
+	}
+
+	public byte getByte(String columnLabel) throws SQLException {
+		return getByte(findColumn(columnLabel));
+	}
+
+	public short getShort(String columnLabel) throws SQLException {
+		return getShort(findColumn(columnLabel));
+	}
+
+	public int getInt(String columnLabel) throws SQLException {
+		return getInt(findColumn(columnLabel));
+	}
+
+	public long getLong(String columnLabel) throws SQLException {
+		return getLong(findColumn(columnLabel));
+	}
+
+	public float getFloat(String columnLabel) throws SQLException {
+		return getFloat(findColumn(columnLabel));
+	}
+
+	public double getDouble(String columnLabel) throws SQLException {
+		return getDouble(findColumn(columnLabel));
+	}
+
+	public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+		return getBigDecimal(findColumn(columnLabel));
+	}
+
+	@SuppressWarnings("deprecation")
+	public BigDecimal getBigDecimal(String columnLabel, int scale)
+			throws SQLException {
+		return getBigDecimal(findColumn(columnLabel), scale);
+	}
+
+	public byte[] getBytes(String columnLabel) throws SQLException {
+		return getBytes(findColumn(columnLabel));
+	}
+
+	public Date getDate(String columnLabel) throws SQLException {
+		return getDate(findColumn(columnLabel));
+	}
+
+	public Time getTime(String columnLabel) throws SQLException {
+		return getTime(findColumn(columnLabel));
+	}
+
+	public Timestamp getTimestamp(String columnLabel) throws SQLException {
+		return getTimestamp(findColumn(columnLabel));
+	}
+
+	public Object getObject(String columnLabel) throws SQLException {
+		return getObject(findColumn(columnLabel));
+	}
+
+	public String getNString(String columnLabel) throws SQLException {
+		return getString(findColumn(columnLabel));
+	}
+
+	public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+		return getDate(findColumn(columnLabel));
+	}
+
+	public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+		return getTime(findColumn(columnLabel));
+	}
+
+	public Timestamp getTimestamp(String columnLabel, Calendar cal)
+			throws SQLException {
+		return getTimestamp(findColumn(columnLabel));
+	}
+
+	public Object getObject(String columnLabel, Map<String, Class<?>> map)
+			throws SQLException {
+		return getObject(findColumn(columnLabel));
+	}
+
+	public <T> T getObject(String columnLabel, Class<T> type)
+			throws SQLException {
+		return getObject(findColumn(columnLabel), type);
+	}
+
+	public ResultSetMetaData getMetaData() throws SQLException {
+		return metaData;
+	}
+
+	public Statement getStatement() throws SQLException {
+		return statement;
+	}
+
+	public int getRow() throws SQLException {
+		return row;
+	}
+
+	public SQLWarning getWarnings() throws SQLException {
+		return null;
+	}
+
+	public void clearWarnings() throws SQLException {
+	}
+
+	public void setFetchDirection(int direction) throws SQLException {
+	}
+
+	public int getFetchDirection() throws SQLException {
+		return FETCH_FORWARD;
+	}
+
+	public void setFetchSize(int rows) throws SQLException {
+	}
+
+	public int getFetchSize() throws SQLException {
+		return 0;
+	}
+
+	public int getType() throws SQLException {
+		return TYPE_FORWARD_ONLY;
+	}
+
+	public int getConcurrency() throws SQLException {
+		return CONCUR_READ_ONLY;
+	}
+
+	public int getHoldability() throws SQLException {
+		return CLOSE_CURSORS_AT_COMMIT;
+	}
+
+	public boolean rowUpdated() throws SQLException {
+		return false;
+	}
+
+	public boolean rowInserted() throws SQLException {
+		return false;
+	}
+
+	public boolean rowDeleted() throws SQLException {
+		return false;
+	}
+
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		throw new SQLException(getClass().getName() + " does not wrap "
+				+ iface.getName());
+	}
+
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getName() + "@row" + row;
+	}
+
+	private SQLException unsupported(String method) {
+		return new SQLFeatureNotSupportedException(method
+				+ " is not supported by " + getClass().getName());
+	}
+
+	private SQLException readOnly() {
+		return new SQLFeatureNotSupportedException(getClass().getName()
+				+ " is read-only.");
+	}
+
+	private static String utf8(byte[] bytes) {
+		try {
+			return new String(bytes, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Wraps an exception thrown while producing rows
+	 */
+	protected static SQLException toSQLException(Throwable t) {
+		if (t instanceof SQLException) {
+			return (SQLException) t;
+		}
+		SQLException e = new SQLException(t.toString());
+		e.initCause(t);
+		return e;
+	}
+
+	// unsupported methods
+
+	public InputStream getAsciiStream(int columnIndex) throws SQLException {
+		throw unsupported("getAsciiStream");
+	}
+
+	public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+		throw unsupported("getUnicodeStream");
+	}
+
+	public InputStream getBinaryStream(int columnIndex) throws SQLException {
+		throw unsupported("getBinaryStream");
+	}
+
+	public InputStream getAsciiStream(String columnLabel) throws SQLException {
+		throw unsupported("getAsciiStream");
+	}
+
+	public InputStream getUnicodeStream(String columnLabel)
+			throws SQLException {
+		throw unsupported("getUnicodeStream");
+	}
+
+	public InputStream getBinaryStream(String columnLabel) throws SQLException {
+		throw unsupported("getBinaryStream");
+	}
+
+	public String getCursorName() throws SQLException {
+		throw unsupported("getCursorName");
+	}
+
+	public Reader getCharacterStream(int columnIndex) throws SQLException {
+		throw unsupported("getCharacterStream");
+	}
+
+	public Reader getCharacterStream(String columnLabel) throws SQLException {
+		throw unsupported("getCharacterStream");
+	}
+
+	public boolean isBeforeFirst() throws SQLException {
+		throw unsupported("isBeforeFirst");
+	}
+
+	public boolean isAfterLast() throws SQLException {
+		throw unsupported("isAfterLast");
+	}
+
+	public boolean isFirst() throws SQLException {
+		throw unsupported("isFirst");
+	}
+
+	public boolean isLast() throws SQLException {
+		throw unsupported("isLast");
+	}
+
+	public void beforeFirst() throws SQLException {
+		throw unsupported("beforeFirst");
+	}
+
+	public void afterLast() throws SQLException {
+		throw unsupported("afterLast");
+	}
+
+	public boolean first() throws SQLException {
+		throw unsupported("first");
+	}
+
+	public boolean last() throws SQLException {
+		throw unsupported("last");
+	}
+
+	public boolean absolute(int rows) throws SQLException {
+		throw unsupported("absolute");
+	}
+
+	public boolean relative(int rows) throws SQLException {
+		throw unsupported("relative");
+	}
+
+	public boolean previous() throws SQLException {
+		throw unsupported("previous");
+	}
+
+	public Ref getRef(int columnIndex) throws SQLException {
+		throw unsupported("getRef");
+	}
+
+	public Blob getBlob(int columnIndex) throws SQLException {
+		throw unsupported("getBlob");
+	}
+
+	public Clob getClob(int columnIndex) throws SQLException {
+		throw unsupported("getClob");
+	}
+
+	public Array getArray(int columnIndex) throws SQLException {
+		throw unsupported("getArray");
+	}
+
+	public Ref getRef(String columnLabel) throws SQLException {
+		throw unsupported("getRef");
+	}
+
+	public Blob getBlob(String columnLabel) throws SQLException {
+		throw unsupported("getBlob");
+	}
+
+	public Clob getClob(String columnLabel) throws SQLException {
+		throw unsupported("getClob");
+	}
+
+	public Array getArray(String columnLabel) throws SQLException {
+		throw unsupported("getArray");
+	}
+
+	public URL getURL(int columnIndex) throws SQLException {
+		throw unsupported("getURL");
+	}
+
+	public URL getURL(String columnLabel) throws SQLException {
+		throw unsupported("getURL");
+	}
+
+	public RowId getRowId(int columnIndex) throws SQLException {
+		throw unsupported("getRowId");
+	}
+
+	public RowId getRowId(String columnLabel) throws SQLException {
+		throw unsupported("getRowId");
+	}
+
+	public NClob getNClob(int columnIndex) throws SQLException {
+		throw unsupported("getNClob");
+	}
+
+	public NClob getNClob(String columnLabel) throws SQLException {
+		throw unsupported("getNClob");
+	}
+
+	public SQLXML getSQLXML(int columnIndex) throws SQLException {
+		throw unsupported("getSQLXML");
+	}
+
+	public SQLXML getSQLXML(String columnLabel) throws SQLException {
+		throw unsupported("getSQLXML");
+	}
+
+	public Reader getNCharacterStream(int columnIndex) throws SQLException {
+		throw unsupported("getNCharacterStream");
+	}
+
+	public Reader getNCharacterStream(String columnLabel) throws SQLException {
+		throw unsupported("getNCharacterStream");
+	}
+
+	// updates
+
+	public void updateNull(int columnIndex) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateByte(int columnIndex, byte x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateShort(int columnIndex, short x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateInt(int columnIndex, int x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateLong(int columnIndex, long x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateFloat(int columnIndex, float x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateDouble(int columnIndex, double x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBigDecimal(int columnIndex, BigDecimal x)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateString(int columnIndex, String x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateDate(int columnIndex, Date x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateTime(int columnIndex, Time x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateTimestamp(int columnIndex, Timestamp x)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateAsciiStream(int columnIndex, InputStream x, int length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBinaryStream(int columnIndex, InputStream x, int length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateCharacterStream(int columnIndex, Reader reader, int length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateObject(int columnIndex, Object x, int scaleOrLength)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateObject(int columnIndex, Object x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNull(String columnLabel) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBoolean(String columnLabel, boolean x)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateByte(String columnLabel, byte x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateShort(String columnLabel, short x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateInt(String columnLabel, int x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateLong(String columnLabel, long x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateFloat(String columnLabel, float x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateDouble(String columnLabel, double x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBigDecimal(String columnLabel, BigDecimal x)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateString(String columnLabel, String x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateDate(String columnLabel, Date x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateTime(String columnLabel, Time x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateTimestamp(String columnLabel, Timestamp x)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateAsciiStream(String columnLabel, InputStream x, int length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBinaryStream(String columnLabel, InputStream x, int length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateCharacterStream(String columnLabel, Reader reader, int length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateObject(String columnLabel, Object x, int scaleOrLength)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateObject(String columnLabel, Object x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void insertRow() throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateRow() throws SQLException {
+		throw readOnly();
+	}
+
+	public void deleteRow() throws SQLException {
+		throw readOnly();
+	}
+
+	public void refreshRow() throws SQLException {
+		throw readOnly();
+	}
+
+	public void cancelRowUpdates() throws SQLException {
+		throw readOnly();
+	}
+
+	public void moveToInsertRow() throws SQLException {
+		throw readOnly();
+	}
+
+	public void moveToCurrentRow() throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateRef(int columnIndex, Ref x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateRef(String columnLabel, Ref x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBlob(int columnIndex, Blob x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBlob(String columnLabel, Blob x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateClob(int columnIndex, Clob x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateClob(String columnLabel, Clob x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateArray(int columnIndex, Array x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateArray(String columnLabel, Array x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateRowId(int columnIndex, RowId x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateRowId(String columnLabel, RowId x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNString(int columnIndex, String x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNString(String columnLabel, String x)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNClob(int columnIndex, NClob x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNClob(String columnLabel, NClob x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateSQLXML(int columnIndex, SQLXML x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateSQLXML(String columnLabel, SQLXML x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNCharacterStream(int columnIndex, Reader reader, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNCharacterStream(String columnLabel, Reader reader, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateAsciiStream(int columnIndex, InputStream x, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBinaryStream(int columnIndex, InputStream x, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateCharacterStream(int columnIndex, Reader reader, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateAsciiStream(String columnLabel, InputStream x, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBinaryStream(String columnLabel, InputStream x, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateCharacterStream(String columnLabel, Reader reader, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBlob(int columnIndex, InputStream x, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBlob(String columnLabel, InputStream x, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateClob(int columnIndex, Reader reader, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateClob(String columnLabel, Reader reader, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNClob(int columnIndex, Reader reader, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNClob(String columnLabel, Reader reader, long length)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNCharacterStream(int columnIndex, Reader reader)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNCharacterStream(String columnLabel, Reader reader)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateAsciiStream(int columnIndex, InputStream x)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBinaryStream(int columnIndex, InputStream x)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateCharacterStream(int columnIndex, Reader reader)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateAsciiStream(String columnLabel, InputStream x)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBinaryStream(String columnLabel, InputStream x)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateCharacterStream(String columnLabel, Reader reader)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBlob(int columnIndex, InputStream x) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateBlob(String columnLabel, InputStream x)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateClob(int columnIndex, Reader reader) throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateClob(String columnLabel, Reader reader)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNClob(int columnIndex, Reader reader)
+			throws SQLException {
+		throw readOnly();
+	}
+
+	public void updateNClob(String columnLabel, Reader reader)
+			throws SQLException {
+		throw readOnly();
+	}
+
+}
@@ -0,0 +1,257 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.connector;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import edu.yale.cs.hadoopdb.catalog.Catalog;
+
+/**
+ * Database specific SQL and JDBC behavior. The dialect of a chunk is chosen
+ * from the JDBC driver of its host ({@link DBChunkHost#getDriver()}) unless
+ * a dialect class is configured with {@link DBConst#DB_SQL_DIALECT}. This
+ * class implements the generic (ANSI SQL) dialect used for unknown drivers.
+ */
+public class SQLDialect {
+
+	public static final Log LOG = LogFactory.getLog(SQLDialect.class
+			.getName());
+
+	private static final SQLDialect GENERIC = new SQLDialect();
+	private static final SQLDialect POSTGRESQL = new PostgreSQLDialect();
+	private static final SQLDialect MYSQL = new MySQLDialect();
+
+	private static Map<String, SQLDialect> configured = new HashMap<String, SQLDialect>();
+
+	/**
+	 * Returns the dialect for a JDBC driver class name
+	 */
+	public static SQLDialect forDriver(String driver) {
+		String d = driver == null ? "" : driver.toLowerCase();
+		if (d.contains("postgresql")) {
+			return POSTGRESQL;
+		} else if (d.contains("mysql")) {
+			return MYSQL;
+		}
+		return GENERIC;
+	}
+
+	/**
+	 * Returns the configured dialect or the dialect of the host's driver
+	 */
+	public static SQLDialect forHost(JobConf conf, DBChunkHost host) {
+		String dialectClass = conf == null ? null : conf
+				.get(DBConst.DB_SQL_DIALECT);
+		if (dialectClass != null) {
+			return getConfigured(conf, dialectClass);
+		}
+		return forDriver(host.getDriver());
+	}
+
+	/**
+	 * Returns the dialect of the database storing a relation according to
+	 * the catalog, or the generic dialect if the catalog is not available.
+	 */
+	public static SQLDialect forRelation(JobConf conf, String relation) {
+		String dialectClass = conf.get(DBConst.DB_SQL_DIALECT);
+		if (dialectClass != null) {
+			return getConfigured(conf, dialectClass);
+		}
+		if (conf.get(DBConst.DB_CONFIG_FILE) == null) {
+			return GENERIC;
+		}
+		try {
+			Collection<DBChunk> chunks = Catalog.getInstance(conf)
+					.getSplitLocationStructure(relation);
+			if (!chunks.isEmpty()) {
+				return forDriver(chunks.iterator().next().getAnyHost()
+						.getDriver());
+			}
+		} catch (RuntimeException e) {
+			LOG.info("Could not determine SQL dialect of " + relation + ": "
+					+ e);
+		}
+		return GENERIC;
+	}
+
+	private static synchronized SQLDialect getConfigured(JobConf conf,
+			String dialectClass) {
+		SQLDialect dialect = configured.get(dialectClass);
+		if (dialect == null) {
+			try {
+				dialect = (SQLDialect) ReflectionUtils.newInstance(Class
+						.forName(dialectClass), conf);
+			} catch (ClassNotFoundException e) {
+				throw new RuntimeException(e);
+			}
+			configured.put(dialectClass, dialect);
+		}
+		return dialect;
+	}
+
+	/**
+	 * Returns a name used in log messages
+	 */
+	public String getName() {
+		return "generic SQL";
+	}
+
+	/**
+	 * Configures a statement (and its connection) so that the driver streams
+	 * the result instead of materializing it in memory. The default uses a
+	 * read-only transaction with a forward cursor of the given fetch size.
+	 */
+	public void configureStreaming(Connection connection, Statement statement,
+			int fetchSize) throws SQLException {
+		connection.setAutoCommit(false);
+		statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+		statement.setFetchSize(fetchSize);
+	}
+
+	/**
+	 * Returns true if {@link #openExport(Connection, Statement, String)} can
+	 * return query results through a bulk export path
+	 */
+	public boolean supportsExport() {
+		return false;
+	}
+
+	/**
+	 * Starts reading the query result through a bulk export path (such as
+	 * PostgreSQL's COPY). Returns null if the query cannot be exported.
+	 */
+	public ResultSet openExport(Connection connection, Statement statement,
+			String sql) throws SQLException {
+		return null;
+	}
+
+	/**
+	 * Adds a row limit (and offset, if positive) to a query without trailing
+	 * semicolon
+	 */
+	public String limit(String sql, long limit, long offset) {
+		StringBuilder sb = new StringBuilder(sql);
+		if (offset > 0) {
+			sb.append(" OFFSET ").append(offset).append(" ROWS");
+		}
+		sb.append(" FETCH FIRST ").append(limit).append(" ROWS ONLY");
+		return sb.toString();
+	}
+
+	/**
+	 * Returns an ORDER BY item sorting NULLs as Hive does (before all values
+	 * in ascending order)
+	 */
+	public String sortKey(String expr, boolean ascending) {
+		return expr + (ascending ? " ASC NULLS FIRST" : " DESC NULLS LAST");
+	}
+
+	/**
+	 * Returns a string expression that sorts by character code, as Hive
+	 * sorts strings, instead of by the database's collation; null if the
+	 * dialect has no such expression (string keys are not sorted then)
+	 */
+	public String binarySortable(String expr) {
+		return null;
+	}
+
+	/**
+	 * Concatenates string expressions
+	 */
+	public String concat(String... exprs) {
+		StringBuilder sb = new StringBuilder("(");
+		for (int i = 0; i < exprs.length; i++) {
+			sb.append(i > 0 ? " || " : "").append(exprs[i]);
+		}
+		return sb.append(")").toString();
+	}
+
+	/**
+	 * Converts an expression to a character string
+	 */
+	public String castToString(String expr) {
+		return "CAST(" + expr + " AS VARCHAR)";
+	}
+
+	/**
+	 * Quotes an identifier (table, column or alias name)
+	 */
+	public String quoteIdentifier(String identifier) {
+		return "\"" + identifier.replace("\"", "\"\"") + "\"";
+	}
+
+	/**
+	 * Returns the planner's estimate of the number of rows a query returns or
+	 * 0 if the database does not provide one
+	 */
+	public long explainRows(Connection connection, String sql)
+			throws SQLException {
+		return 0;
+	}
+
+	/**
+	 * Returns the number of rows of a table according to the database's
+	 * statistics or 0 if not available
+	 */
+	public long tableRows(Connection connection, String relation)
+			throws SQLException {
+		return 0;
+	}
+
+	/**
+	 * Returns a cheap query used to check that a connection is alive
+	 */
+	public String getValidationQuery() {
+		return DBConst.DEFAULT_POOL_VALIDATION_QUERY;
+	}
+
+	/**
+	 * Returns the first column of the first row of a query as a long (0 if
+	 * there is no row)
+	 */
+	protected static long queryLong(Connection connection, String sql)
+			throws SQLException {
+		Statement statement = connection.createStatement();
+		try {
+			ResultSet rs = statement.executeQuery(sql);
+			if (rs.next()) {
+				return Math.max(0, rs.getLong(1));
+			}
+			return 0;
+		} finally {
+			statement.close();
+		}
+	}
+
+	/**
+	 * Returns a SQL string literal
+	 */
+	protected static String quoteLiteral(String value) {
+		return "'" + value.replace("'", "''") + "'";
+	}
+
+}
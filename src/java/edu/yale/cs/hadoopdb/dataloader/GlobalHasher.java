@@ -219,7 +219,16 @@ public class GlobalHasher extends HDFSJobBase {
 		  }
 	}
 	
-	private static int hash(String s) {
+	public static int hash(String s) {
 		return Integer.rotateLeft(s.hashCode(), 13);
 	}
+
+	/**
+	 * Returns the partition a record with the given hash field value is
+	 * written to (the same as Hadoop's default partitioner applied to the
+	 * hashed key).
+	 */
+	public static int getPartition(String s, int numPartitions) {
+		return (hash(s) & Integer.MAX_VALUE) % numPartitions;
+	}
 }
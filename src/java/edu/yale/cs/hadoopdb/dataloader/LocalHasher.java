@@ -91,12 +91,9 @@ public class LocalHasher {
 
 				String key = fields[hashFieldPos];
 
-				int hash = hash(key);
-
 				counter++;
 
-				int hash_mod = hash % partNo;				
-				if(hash_mod < 0) hash_mod += partNo;
+				int hash_mod = getPartition(key, partNo);
 				
 				// write to an appropriate file
 				out[hash_mod].write(line);
@@ -115,5 +112,17 @@ public class LocalHasher {
 	private static int hash(String s) {
 		return Integer.reverse(s.hashCode());
 	}	
+
+	/**
+	 * Returns the partition (chunk of a node) a record with the given hash
+	 * field value is written to
+	 */
+	public static int getPartition(String s, int numPartitions) {
+		int partition = hash(s) % numPartitions;
+		if (partition < 0) {
+			partition += numPartitions;
+		}
+		return partition;
+	}
 	
 }
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.exec;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+
+import edu.yale.cs.hadoopdb.connector.DBColumnBatch;
+
+/**
+ * Base class for mappers of batch mode DB jobs ({@link edu.yale.cs.hadoopdb.connector.DBConst#DB_BATCH}).
+ * Extensions process a {@link DBColumnBatch} at a time, typically in loops
+ * over its primitive column arrays, and may keep partial results across
+ * batches which they emit in {@link #flush(OutputCollector, Reporter)} once
+ * all batches have been read.
+ * @param <K>
+ * @param <V>
+ */
+public abstract class DBBatchMapper<K, V> extends MapReduceBase implements
+		Mapper<LongWritable, DBColumnBatch, K, V> {
+
+	private OutputCollector<K, V> output;
+	private Reporter reporter;
+
+	/**
+	 * Processes a batch of rows
+	 */
+	protected abstract void mapBatch(DBColumnBatch batch,
+			OutputCollector<K, V> output, Reporter reporter)
+			throws IOException;
+
+	/**
+	 * Called after the last batch (only if there was at least one batch)
+	 */
+	protected void flush(OutputCollector<K, V> output, Reporter reporter)
+			throws IOException {
+	}
+
+	@Override
+	public void map(LongWritable key, DBColumnBatch batch,
+			OutputCollector<K, V> output, Reporter reporter) throws IOException {
+		this.output = output;
+		this.reporter = reporter;
+		mapBatch(batch, output, reporter);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (output != null) {
+			flush(output, reporter);
+		}
+		super.close();
+	}
+
+}
@@ -23,13 +23,19 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.Counters;
 import org.apache.hadoop.mapred.JobClient;
 import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RunningJob;
 import org.apache.hadoop.util.StringUtils;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
 
+import edu.yale.cs.hadoopdb.connector.CombineDBInputFormat;
+import edu.yale.cs.hadoopdb.connector.DBBatchInputFormat;
+import edu.yale.cs.hadoopdb.connector.DBConfiguration;
 import edu.yale.cs.hadoopdb.connector.DBConst;
+import edu.yale.cs.hadoopdb.connector.DBCounter;
 import edu.yale.cs.hadoopdb.connector.DBInputFormat;
 import edu.yale.cs.hadoopdb.connector.DBWritable;
 
@@ -62,6 +68,7 @@ public abstract class DBJobBase extends Configured implements Tool {
 
 		Path configuration_file = null;
 		boolean replication = false;
+		boolean combine = false;
 		
 
 		for (int i = 0; i < args.length; ++i) {
@@ -69,6 +76,8 @@ public abstract class DBJobBase extends Configured implements Tool {
 				configuration_file = new Path(args[++i]);
 			} else if ("-replication".equals(args[i])) {
 				replication = true;
+			} else if ("-combine".equals(args[i])) {
+				combine = true;
 			} else {
 				other_args.add(args[i]);
 			}
@@ -81,7 +90,7 @@ public abstract class DBJobBase extends Configured implements Tool {
 		LOG.info(conf.get(DBConst.DB_SQL_QUERY));
 
 		if (conf.get(DBConst.DB_RELATION_ID) == null || conf.get(DBConst.DB_SQL_QUERY) == null
-				|| conf.get(DBConst.DB_RECORD_READER) == null) {
+				|| (conf.get(DBConst.DB_RECORD_READER) == null && !conf.getBoolean(DBConst.DB_BATCH, false))) {
 			throw new Exception(
 					"ERROR: DB Job requires a relation, an SQL Query and a Record Reader class to be configured.\n"
 							+ "Please specify using: conf.set(\"" + DBConst.DB_RELATION_ID + "\", <relation name>), conf.set(\"" + DBConst.DB_SQL_QUERY + "\", <SQL QUERY>)\n"
@@ -91,6 +100,9 @@ public abstract class DBJobBase extends Configured implements Tool {
 		if(replication) {
 			conf.setBoolean(DBConst.DB_REPLICATION, true);
 		}
+		if(combine) {
+			conf.setBoolean(DBConst.DB_COMBINE_SPLITS, true);
+		}
 
 		if (configuration_file == null) {
 			if(conf.get(DBConst.DB_CONFIG_FILE) == null) {
@@ -107,10 +119,21 @@ public abstract class DBJobBase extends Configured implements Tool {
 	}
 	
 	/**
-	 * Sets an input format (DBJobBaseInputFormat by default)
+	 * Sets an input format (DBJobBaseInputFormat by default,
+	 * DBJobBaseBatchInputFormat for jobs reading column batches,
+	 * CombineDBJobBaseInputFormat if chunks are to be combined)
 	 */
 	protected void setInputFormat(JobConf conf) {
-		conf.setInputFormat(DBJobBaseInputFormat.class);
+		if (conf.getBoolean(DBConst.DB_BATCH, false)) {
+			if (conf.getBoolean(DBConst.DB_COMBINE_SPLITS, false)) {
+				LOG.warn("Chunks are not combined in batch mode.");
+			}
+			conf.setInputFormat(DBJobBaseBatchInputFormat.class);
+		} else if (conf.getBoolean(DBConst.DB_COMBINE_SPLITS, false)) {
+			conf.setInputFormat(CombineDBJobBaseInputFormat.class);
+		} else {
+			conf.setInputFormat(DBJobBaseInputFormat.class);
+		}
 	}
 
 	public int run(String[] args) throws Exception {
@@ -122,14 +145,45 @@ public abstract class DBJobBase extends Configured implements Tool {
 			System.err.print("ERROR: " + StringUtils.stringifyException(e));
 			return printDbUsage();
 		}
-		JobClient.runJob(conf);
+		RunningJob job = JobClient.runJob(conf);
 
 		long endTime = System.currentTimeMillis();
 		LOG.info("\n" + conf.getJobName() + " JOB TIME : " + (endTime - startTime) + " ms.\n");
+		LOG.info(getCounterSummary(job.getCounters()));
 
 		return 0;
 	}
 	
+	/**
+	 * Summarizes DB read counters of a finished job, including per-host
+	 * time to first row histograms.
+	 */
+	protected String getCounterSummary(Counters counters) {
+		StringBuilder sb = new StringBuilder("\nDB read summary:\n");
+		for (DBCounter c : DBCounter.values()) {
+			sb.append("  ").append(c.name()).append(" = ").append(
+					counters.getCounter(c)).append("\n");
+		}
+		long chunks = counters.getCounter(DBCounter.CHUNKS_READ);
+		if (chunks > 0) {
+			sb.append("  avg connect ms = ").append(
+					counters.getCounter(DBCounter.CONNECT_MILLIS) / chunks)
+					.append(", avg first row ms = ").append(
+							counters.getCounter(DBCounter.FIRST_ROW_MILLIS)
+									/ chunks).append("\n");
+		}
+		Counters.Group hosts = counters
+				.getGroup(DBConst.HOST_LATENCY_COUNTER_GROUP);
+		if (hosts != null) {
+			sb.append("Time to first row per host:\n");
+			for (Counters.Counter c : hosts) {
+				sb.append("  ").append(c.getName()).append(" : ").append(
+						c.getCounter()).append("\n");
+			}
+		}
+		return sb.toString();
+	}
+
 	protected static class DBJobBaseInputFormat extends
 			DBInputFormat<DBWritable> {
 		
@@ -137,14 +191,7 @@ public abstract class DBJobBase extends Configured implements Tool {
 		public void configure(JobConf conf) {
 			super.configure(conf);
 			long startTime = System.currentTimeMillis();
-			dbConf.setSqlQuery(conf.get(DBConst.DB_SQL_QUERY));
-			conf.setInt(DBConst.DB_FETCH_SIZE, conf.getInt(DBConst.DB_FETCH_SIZE,
-					DBConst.SQL_DEFAULT_FETCH_SIZE));
-			try {
-				dbConf.setValueClass(Class.forName(conf.get(DBConst.DB_RECORD_READER)));
-			} catch (ClassNotFoundException e) {
-				LOG.error("No RecordReader class specified.", e);
-			}			
+			configureDBConf(dbConf, conf);
 
 			long endTime = System.currentTimeMillis();
 			LOG.debug(DBJobBaseInputFormat.class.getName() + ".configure() time (ms): "
@@ -152,6 +199,49 @@ public abstract class DBJobBase extends Configured implements Tool {
 		}
 	}
 
+	/**
+	 * Input format packing several chunks into one split (-combine option)
+	 */
+	protected static class CombineDBJobBaseInputFormat extends
+			CombineDBInputFormat<DBWritable> {
+
+		@Override
+		public void configure(JobConf conf) {
+			super.configure(conf);
+			configureDBConf(dbConf, conf);
+		}
+	}
+
+	/**
+	 * Input format delivering column batches (batch mode jobs)
+	 */
+	protected static class DBJobBaseBatchInputFormat extends DBBatchInputFormat {
+
+		@Override
+		public void configure(JobConf conf) {
+			super.configure(conf);
+			configureDBConf(dbConf, conf);
+		}
+	}
+
+	/**
+	 * Sets the SQL query, fetch size and value class of the job
+	 */
+	protected static void configureDBConf(DBConfiguration dbConf, JobConf conf) {
+		dbConf.setSqlQuery(conf.get(DBConst.DB_SQL_QUERY));
+		conf.setInt(DBConst.DB_FETCH_SIZE, conf.getInt(DBConst.DB_FETCH_SIZE,
+				DBConst.SQL_DEFAULT_FETCH_SIZE));
+		if (conf.get(DBConst.DB_RECORD_READER) == null) {
+			// batch mode
+			return;
+		}
+		try {
+			dbConf.setValueClass(Class.forName(conf.get(DBConst.DB_RECORD_READER)));
+		} catch (ClassNotFoundException e) {
+			LOG.error("No RecordReader class specified.", e);
+		}
+	}
+
 	/**
 	 * Provide job-specific command-line help
 	 */
@@ -160,7 +250,7 @@ public abstract class DBJobBase extends Configured implements Tool {
 	public int printDbUsage() {
 		printUsage();
 		System.out
-				.println("-" + DBConst.DB_CONFIG_FILE + " <xml catalog file> [-replication]");
+				.println("-" + DBConst.DB_CONFIG_FILE + " <xml catalog file> [-replication] [-combine]");
 		ToolRunner.printGenericCommandUsage(System.out);
 		return -1;
 	}
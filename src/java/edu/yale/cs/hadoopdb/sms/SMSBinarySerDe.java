@@ -0,0 +1,178 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.sms;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.serde2.Deserializer;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+
+import edu.yale.cs.hadoopdb.util.BinaryRowEncoder;
+
+/**
+ * Deserializes rows written by {@link BinaryRowEncoder}. The SMS planner sets
+ * it as the deserializer of tables read in the binary row format; columns and
+ * their types are taken from the (rewritten) table properties "columns" and
+ * "columns.types". Rows are returned as lists of Java objects.
+ */
+public class SMSBinarySerDe implements Deserializer {
+
+	public static final Log LOG = LogFactory.getLog(SMSBinarySerDe.class
+			.getName());
+
+	private int[] types;
+	private ObjectInspector inspector;
+	private ArrayList<Object> row;
+
+	@Override
+	public void initialize(Configuration conf, Properties tbl)
+			throws SerDeException {
+		String columns = tbl.getProperty("columns");
+		String columnTypes = tbl.getProperty("columns.types");
+		if (columns == null || columnTypes == null) {
+			throw new SerDeException("Table properties do not define columns.");
+		}
+		String[] names = columns.split(",");
+		String[] typeNames = columnTypes.split(":");
+		if (names.length != typeNames.length) {
+			throw new SerDeException("Columns " + columns
+					+ " do not match types " + columnTypes);
+		}
+
+		types = new int[names.length];
+		List<String> fieldNames = new ArrayList<String>();
+		List<ObjectInspector> fieldInspectors = new ArrayList<ObjectInspector>();
+		for (int i = 0; i < names.length; i++) {
+			types[i] = BinaryRowEncoder.getType(typeNames[i]);
+			fieldNames.add(names[i]);
+			fieldInspectors.add(getInspector(types[i]));
+		}
+		inspector = ObjectInspectorFactory.getStandardStructObjectInspector(
+				fieldNames, fieldInspectors);
+		row = new ArrayList<Object>(names.length);
+		for (int i = 0; i < names.length; i++) {
+			row.add(null);
+		}
+	}
+
+	private static ObjectInspector getInspector(int type) {
+		switch (type) {
+		case BinaryRowEncoder.BYTE:
+			return PrimitiveObjectInspectorFactory.javaByteObjectInspector;
+		case BinaryRowEncoder.SHORT:
+			return PrimitiveObjectInspectorFactory.javaShortObjectInspector;
+		case BinaryRowEncoder.INT:
+			return PrimitiveObjectInspectorFactory.javaIntObjectInspector;
+		case BinaryRowEncoder.LONG:
+			return PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+		case BinaryRowEncoder.FLOAT:
+			return PrimitiveObjectInspectorFactory.javaFloatObjectInspector;
+		case BinaryRowEncoder.DOUBLE:
+			return PrimitiveObjectInspectorFactory.javaDoubleObjectInspector;
+		case BinaryRowEncoder.BOOLEAN:
+			return PrimitiveObjectInspectorFactory.javaBooleanObjectInspector;
+		default:
+			return PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		}
+	}
+
+	@Override
+	public Object deserialize(Writable blob) throws SerDeException {
+		Text text = (Text) blob;
+		byte[] bytes = text.getBytes();
+		int pos = (types.length + 7) / 8;
+		try {
+			for (int i = 0; i < types.length; i++) {
+				if ((bytes[i / 8] & (1 << (i % 8))) != 0) {
+					row.set(i, null);
+					continue;
+				}
+				switch (types[i]) {
+				case BinaryRowEncoder.BYTE:
+				case BinaryRowEncoder.SHORT:
+				case BinaryRowEncoder.INT:
+				case BinaryRowEncoder.LONG: {
+					long v = WritableComparator.readVLong(bytes, pos);
+					pos += WritableUtils.decodeVIntSize(bytes[pos]);
+					if (types[i] == BinaryRowEncoder.BYTE) {
+						row.set(i, Byte.valueOf((byte) v));
+					} else if (types[i] == BinaryRowEncoder.SHORT) {
+						row.set(i, Short.valueOf((short) v));
+					} else if (types[i] == BinaryRowEncoder.INT) {
+						row.set(i, Integer.valueOf((int) v));
+					} else {
+						row.set(i, Long.valueOf(v));
+					}
+					break;
+				}
+				case BinaryRowEncoder.FLOAT:
+					row.set(i, Float.intBitsToFloat((int) readBigEndian(bytes,
+							pos, 4)));
+					pos += 4;
+					break;
+				case BinaryRowEncoder.DOUBLE:
+					row.set(i, Double.longBitsToDouble(readBigEndian(bytes,
+							pos, 8)));
+					pos += 8;
+					break;
+				case BinaryRowEncoder.BOOLEAN:
+					row.set(i, Boolean.valueOf(bytes[pos++] != 0));
+					break;
+				default: {
+					int len = (int) WritableComparator.readVLong(bytes, pos);
+					pos += WritableUtils.decodeVIntSize(bytes[pos]);
+					row.set(i, Text.decode(bytes, pos, len));
+					pos += len;
+				}
+				}
+			}
+		} catch (IOException e) {
+			throw new SerDeException(e);
+		}
+		if (pos != text.getLength()) {
+			throw new SerDeException("Malformed binary row: read " + pos
+					+ " of " + text.getLength() + " bytes");
+		}
+		return row;
+	}
+
+	private static long readBigEndian(byte[] bytes, int pos, int n) {
+		long v = 0;
+		for (int i = 0; i < n; i++) {
+			v = (v << 8) | (bytes[pos + i] & 0xff);
+		}
+		return v;
+	}
+
+	@Override
+	public ObjectInspector getObjectInspector() throws SerDeException {
+		return inspector;
+	}
+
+}
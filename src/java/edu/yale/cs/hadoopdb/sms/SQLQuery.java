@@ -39,6 +39,8 @@ public class SQLQuery {
 	HashMap<String, String> columnTypeMap = new HashMap<String, String>();
 	// aliases to columns (optional)
 	HashMap<String, String> columnAliasMap = new HashMap<String, String>();
+	// simple conditions on base table columns (for chunk pruning)
+	List<String> chunkConditions = new ArrayList<String>();
 
 	private String tableName;
 	@SuppressWarnings("unused")
@@ -76,6 +78,44 @@ public class SQLQuery {
 		return fields.get(name);
 	}
 
+	/**
+	 * Adds a condition "column op value" on a base table column that all
+	 * returned rows satisfy (values of numeric columns are compared as
+	 * numbers, others as strings)
+	 */
+	public void addChunkCondition(String column, String op, Object value) {
+		chunkConditions.add(column + " " + op + " " + getLiteral(column, value));
+	}
+
+	/**
+	 * Returns a value compared with a base table column as a SQL literal: a
+	 * number for numeric columns, a single-quoted string otherwise
+	 */
+	public String getLiteral(String column, Object value) {
+		String type = fields.get(column);
+		if (type.equals("tinyint") || type.equals("smallint")
+				|| type.equals("int") || type.equals("bigint")
+				|| type.equals("float") || type.equals("double")) {
+			return value.toString();
+		}
+		return "'" + value.toString().replace("'", "''") + "'";
+	}
+
+	/**
+	 * Returns the conjunction of the conditions added with addChunkCondition
+	 * (see {@link edu.yale.cs.hadoopdb.connector.DBChunkPruner}) or null
+	 */
+	public String getChunkPredicate() {
+		if (chunkConditions.isEmpty()) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (String condition : chunkConditions) {
+			sb.append(" AND ").append(condition);
+		}
+		return sb.substring(5);
+	}
+
 	public String getDBQuerySchema() {
 
 		StringBuilder schema = new StringBuilder();
@@ -130,6 +170,8 @@ public class SQLQuery {
 	private String typeDLL(String type) {
 		if (type.equals("int"))
 			return "i32";
+		else if (type.equals("bigint"))
+			return "i64";
 		else
 			return type;
 	}
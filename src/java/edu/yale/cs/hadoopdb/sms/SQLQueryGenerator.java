@@ -15,12 +15,19 @@
  */
 package edu.yale.cs.hadoopdb.sms;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.Vector;
 
 import org.apache.commons.logging.Log;
@@ -28,26 +35,47 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.ql.exec.ColumnInfo;
+import org.apache.hadoop.hive.ql.exec.ExtractOperator;
 import org.apache.hadoop.hive.ql.exec.FilterOperator;
 import org.apache.hadoop.hive.ql.exec.FunctionInfo;
 import org.apache.hadoop.hive.ql.exec.FunctionRegistry;
 import org.apache.hadoop.hive.ql.exec.GroupByOperator;
+import org.apache.hadoop.hive.ql.exec.JoinOperator;
+import org.apache.hadoop.hive.ql.exec.LimitOperator;
 import org.apache.hadoop.hive.ql.exec.Operator;
+import org.apache.hadoop.hive.ql.exec.ReduceSinkOperator;
 import org.apache.hadoop.hive.ql.exec.SelectOperator;
 import org.apache.hadoop.hive.ql.exec.TableScanOperator;
+import org.apache.hadoop.hive.ql.exec.Task;
 import org.apache.hadoop.hive.ql.exec.UDAFEvaluator;
 import org.apache.hadoop.hive.ql.exec.UDF;
 import org.apache.hadoop.hive.ql.metadata.Table;
 import org.apache.hadoop.hive.ql.parse.QB;
+import org.apache.hadoop.hive.ql.parse.QBParseInfo;
 import org.apache.hadoop.hive.ql.plan.aggregationDesc;
 import org.apache.hadoop.hive.ql.plan.exprNodeColumnDesc;
 import org.apache.hadoop.hive.ql.plan.exprNodeConstantDesc;
 import org.apache.hadoop.hive.ql.plan.exprNodeDesc;
 import org.apache.hadoop.hive.ql.plan.exprNodeFuncDesc;
 import org.apache.hadoop.hive.ql.plan.groupByDesc;
+import org.apache.hadoop.hive.ql.plan.joinCond;
+import org.apache.hadoop.hive.ql.plan.joinDesc;
+import org.apache.hadoop.hive.ql.plan.mapredWork;
+import org.apache.hadoop.hive.ql.plan.partitionDesc;
+import org.apache.hadoop.hive.ql.plan.reduceSinkDesc;
 import org.apache.hadoop.hive.ql.udf.UDFSubstr;
 import org.apache.hadoop.hive.ql.udf.UDFYear;
-
+import org.apache.hadoop.hive.serde.Constants;
+import org.apache.hadoop.hive.serde2.Deserializer;
+import org.apache.hadoop.mapred.JobConf;
+
+import edu.yale.cs.hadoopdb.catalog.Catalog;
+import edu.yale.cs.hadoopdb.connector.DBChunk;
+import edu.yale.cs.hadoopdb.connector.DBChunkPruner;
+import edu.yale.cs.hadoopdb.connector.DBChunkSplitter;
+import edu.yale.cs.hadoopdb.connector.DBConst;
+import edu.yale.cs.hadoopdb.connector.DBSemiJoinFilter;
+import edu.yale.cs.hadoopdb.connector.SQLDialect;
 import edu.yale.cs.hadoopdb.sms.connector.SMSInputFormat;
 
 /**
@@ -59,36 +87,116 @@ public class SQLQueryGenerator {
 			.getName());
 
 	private static final String HIVE_COLUMN_PREFIX = "_col";
+	/**
+	 * Hive types the databases sort like Hive
+	 */
+	private static final Set<String> NUMERIC_TYPES = new HashSet<String>(
+			Arrays.asList("tinyint", "smallint", "int", "bigint", "float",
+					"double"));
+	/**
+	 * Hive types of semi-join keys: their string values (compared by
+	 * DBSemiJoinFilter) are the same whatever database or driver returns them
+	 */
+	private static final Set<String> SEMIJOIN_KEY_TYPES = new HashSet<String>(
+			Arrays.asList("int", "bigint", "string"));
 
 	/**
 	 * Performs Hive's plan analysis and SQL generation for all tables
 	 */
-	public static void process(HiveConf conf, QB qb, HashMap<String, Operator<? extends Serializable>> topOps) {
+	public static void process(HiveConf conf, QB qb, HashMap<String, Operator<? extends Serializable>> topOps,
+			List<Task<? extends Serializable>> rootTasks) {
 		
+		Integer limit = getPushableLimit(qb);
+		String splitColumn = DBChunkSplitter.isEnabled(new JobConf(conf)) ? conf
+				.get(DBConst.DB_SPLIT_COLUMN).trim().toLowerCase() : null;
+		Set<String> processed = new HashSet<String>();
+		Map<String, SemiJoin> semiJoins = new HashMap<String, SemiJoin>();
+
+		// a join of two co-partitioned tables is executed by the databases
+		// (other joins may get a semi-join reduction)
+		if (qb.getTabAliases().size() == 2 && qb.getSubqAliases().isEmpty()) {
+			Iterator<String> it = qb.getTabAliases().iterator();
+			String[] aliases = { it.next(), it.next() };
+			if (isSMSTable(qb, aliases[0]) && isSMSTable(qb, aliases[1])
+					&& processJoin(conf, qb, topOps, rootTasks, aliases, semiJoins)) {
+				processed.add(aliases[0]);
+				processed.add(aliases[1]);
+			}
+		}
+
 		for (String alias : qb.getMetaData().getAliasToTable().keySet()) {
 			LOG.debug("Table : " + alias);
 			Table tbl = qb.getMetaData().getTableForAlias(alias);
 
-			if (tbl.getInputFormatClass().equals(SMSInputFormat.class)) {
+			if (isSMSTable(qb, alias) && !processed.contains(alias)) {
 
+				SQLDialect dialect = SQLDialect.forRelation(new JobConf(conf),
+						tbl.getName());
+				SemiJoin semiJoin = semiJoins.get(alias);
 				SQLQuery sqlStructure = SQLQueryGenerator.processTable(alias, tbl,
-						(TableScanOperator) topOps.get(alias));
-				conf.set(SMSInputFormat.DB_QUERY_SCHEMA_PREFIX + "_"
-						+ tbl.getName(), sqlStructure.getDBQuerySchema());
-				conf.set(SMSInputFormat.DB_SQL_QUERY_PREFIX + "_"
-						+ tbl.getName(), sqlStructure.getSqlQuery());
-				
-				SQLQueryGenerator.hackMapredWorkSchema(sqlStructure, tbl);
+						(TableScanOperator) topOps.get(alias), dialect, limit,
+						semiJoin == null ? null : semiJoin.sqlCondition, splitColumn);
+				configureTable(conf, rootTasks, alias, tbl, sqlStructure, semiJoin);
+			}
+		}
+
+	}
 
-				LOG.info(SMSInputFormat.DB_QUERY_SCHEMA_PREFIX + "_"
-						+ tbl.getName() + "---"
-						+ sqlStructure.getDBQuerySchema());
-				LOG.info(SMSInputFormat.DB_SQL_QUERY_PREFIX + "_"
-						+ tbl.getName() + "---" + sqlStructure.getSqlQuery());
+	private static boolean isSMSTable(QB qb, String alias) {
+		return qb.getMetaData().getTableForAlias(alias).getInputFormatClass()
+				.equals(SMSInputFormat.class);
+	}
 
-			}
+	/**
+	 * Passes the SQL query and schema of a table (and its semi-join filter,
+	 * if any) to SMSInputFormat and adjusts Hive's table schema accordingly.
+	 * Settings of previous queries of the session are overwritten.
+	 */
+	private static void configureTable(HiveConf conf, List<Task<? extends Serializable>> rootTasks,
+			String alias, Table tbl, SQLQuery sqlStructure, SemiJoin semiJoin) {
+
+		conf.set(SMSInputFormat.DB_QUERY_SCHEMA_PREFIX + "_"
+				+ tbl.getName(), sqlStructure.getDBQuerySchema());
+		conf.set(SMSInputFormat.DB_SQL_QUERY_PREFIX + "_"
+				+ tbl.getName(), sqlStructure.getSqlQuery());
+		String predicate = sqlStructure.getChunkPredicate();
+		conf.set(SMSInputFormat.DB_CHUNK_PREDICATE_PREFIX + "_"
+				+ tbl.getName(), predicate == null ? "" : predicate);
+		boolean filtered = semiJoin != null && semiJoin.filter != null;
+		conf.set(SMSInputFormat.DB_SEMIJOIN_FILTER_PREFIX + "_"
+				+ tbl.getName(), filtered ? semiJoin.filter : "");
+		conf.set(SMSInputFormat.DB_SEMIJOIN_KEY_PREFIX + "_"
+				+ tbl.getName(), filtered ? semiJoin.keyColumn : "");
+		
+		SQLQueryGenerator.hackMapredWorkSchema(sqlStructure, tbl);
+		if (conf.getBoolean(DBConst.DB_SMS_BINARY_ROWS, false)
+				&& setDeserializer(rootTasks, alias, SMSBinarySerDe.class)) {
+			conf.setBoolean(SMSInputFormat.DB_BINARY_ROW_PREFIX + "_"
+					+ tbl.getName(), true);
 		}
 
+		LOG.info(SMSInputFormat.DB_QUERY_SCHEMA_PREFIX + "_"
+				+ tbl.getName() + "---"
+				+ sqlStructure.getDBQuerySchema());
+		LOG.info(SMSInputFormat.DB_SQL_QUERY_PREFIX + "_"
+				+ tbl.getName() + "---" + sqlStructure.getSqlQuery());
+	}
+
+	/**
+	 * Returns the LIMIT of a query reading a single table (possibly after
+	 * sorting) or null. Each chunk may then return only the first rows of its
+	 * part of the result (see processTopN).
+	 */
+	private static Integer getPushableLimit(QB qb) {
+		if (qb.getTabAliases().size() != 1 || !qb.getSubqAliases().isEmpty()) {
+			return null;
+		}
+		QBParseInfo parseInfo = qb.getParseInfo();
+		Set<String> clauses = parseInfo.getClauseNames();
+		if (clauses.size() != 1) {
+			return null;
+		}
+		return parseInfo.getDestLimit(clauses.iterator().next());
 	}
 
 	/**
@@ -109,6 +217,38 @@ public class SQLQueryGenerator {
 		LOG.debug("Hacked Table properties " + tbl + " : " + schema.toString());
 	}
 
+	/**
+	 * Replaces the deserializer of the table scanned by the given alias in
+	 * all map-reduce tasks of the plan. Returns false if the alias was not
+	 * found, in which case the table is read as text.
+	 */
+	private static boolean setDeserializer(List<Task<? extends Serializable>> tasks, String alias,
+			Class<? extends Deserializer> deserializerClass) {
+
+		boolean found = false;
+		if (tasks == null) {
+			return found;
+		}
+		for (Task<? extends Serializable> task : tasks) {
+			if (task.getWork() instanceof mapredWork) {
+				mapredWork work = (mapredWork) task.getWork();
+				for (Map.Entry<String, ArrayList<String>> e : work.getPathToAliases().entrySet()) {
+					for (String a : e.getValue()) {
+						if (isAlias(a, alias)) {
+							partitionDesc part = work.getPathToPartitionInfo().get(e.getKey());
+							if (part != null) {
+								part.getTableDesc().setDeserializerClass(deserializerClass);
+								found = true;
+							}
+						}
+					}
+				}
+			}
+			found |= setDeserializer(task.getChildTasks(), alias, deserializerClass);
+		}
+		return found;
+	}
+
 	/**
 	 * Generates default table schema (as in table definition) 
 	 */
@@ -145,11 +285,46 @@ public class SQLQueryGenerator {
 	}
 
 	/**
-	 * Builds SQL query for a given Hive's table 
+	 * Builds SQL query for a given Hive's table using the generic SQL dialect
 	 */
-	@SuppressWarnings("unchecked")
 	public static SQLQuery processTable(String alias, Table tbl,
 			TableScanOperator tableScanOp) {
+		return processTable(alias, tbl, tableScanOp, SQLDialect
+				.forDriver(null));
+	}
+
+	/**
+	 * Builds SQL query for a given Hive's table in the dialect of the
+	 * database storing it
+	 */
+	public static SQLQuery processTable(String alias, Table tbl,
+			TableScanOperator tableScanOp, SQLDialect dialect) {
+		return processTable(alias, tbl, tableScanOp, dialect, null);
+	}
+
+	/**
+	 * Builds SQL query for a given Hive's table in the dialect of the
+	 * database storing it. If limit is not null, a sort and limit following
+	 * the pushed down operators are added to the query as well.
+	 */
+	public static SQLQuery processTable(String alias, Table tbl,
+			TableScanOperator tableScanOp, SQLDialect dialect, Integer limit) {
+		return processTable(alias, tbl, tableScanOp, dialect, limit, null, null);
+	}
+
+	/**
+	 * Builds SQL query for a given Hive's table, optionally restricted by the
+	 * condition of a semi-join reduction (see processSemiJoin). If the table
+	 * has the column chunks are sub-split on (splitColumn, may be null), the
+	 * WHERE clause gets {@link DBConst#SPLIT_RANGE_PLACEHOLDER} so that each
+	 * sub-split restricts the scan of the table itself: the pushed down
+	 * partial aggregates and top-N are then computed per range and merged by
+	 * Hive like those of chunks.
+	 */
+	@SuppressWarnings("unchecked")
+	private static SQLQuery processTable(String alias, Table tbl,
+			TableScanOperator tableScanOp, SQLDialect dialect, Integer limit,
+			String sqlSemiJoin, String splitColumn) {
 
 		List<Operator<? extends Serializable>> opsToRemove = new ArrayList<Operator<? extends Serializable>>();
 
@@ -160,6 +335,7 @@ public class SQLQueryGenerator {
 
 		StringBuilder sqlWhere = new StringBuilder();
 		StringBuilder sqlGroupBy = new StringBuilder();
+		StringBuilder sqlOrderBy = new StringBuilder();
 
 		StringBuilder sb = new StringBuilder();
 		Vector<ColumnInfo> rowSchema = tableScanOp.getSchema().getSignature();
@@ -175,7 +351,56 @@ public class SQLQueryGenerator {
 
 		HashMap<String, String> columnsMapping = new HashMap<String, String>();
 
-		Operator<? extends Serializable> o = children.get(0);
+		Operator<? extends Serializable> o = pushDownOperators(children.get(0),
+				sqlStructure, columnsMapping, sqlWhere, sqlGroupBy, opsToRemove, dialect);
+		if (sqlSemiJoin != null) {
+			if (sqlWhere.length() > 0)
+				sqlWhere.append(" AND ");
+			sqlWhere.append(sqlSemiJoin);
+		}
+		if (splitColumn != null && sqlStructure.getField(splitColumn) != null) {
+			if (sqlWhere.length() > 0)
+				sqlWhere.insert(0, "(").append(") AND ");
+			sqlWhere.append("(").append(DBConst.SPLIT_RANGE_PLACEHOLDER).append(")");
+		}
+		boolean aggregated = false;
+		for (Operator<? extends Serializable> op : opsToRemove) {
+			aggregated |= op instanceof GroupByOperator;
+		}
+
+		// handle ORDER BY/LIMIT (top-N per chunk, operators are kept for the
+		// final merge)
+		Integer topN = null;
+		if (limit != null && !aggregated
+				&& processTopN(o, sqlStructure, columnsMapping, dialect, sqlOrderBy)) {
+			topN = limit;
+		}
+
+		sqlStructure.sqlQuery = buildSQLQuery(sqlStructure, alias, tbl, sqlWhere, sqlGroupBy, sqlOrderBy, topN, dialect) + ";";
+
+		LOG.info(sqlStructure.sqlQuery);
+
+		// removing operators!
+		for (Operator op : opsToRemove) {
+			removeOperator(op);
+		}
+
+		// hack rowSchema in TableScanOp
+		tableScanOp.getSchema().setSignature(sqlStructure.getTableRowSchema());
+
+		return sqlStructure;
+	}
+
+	/**
+	 * Analyzes the chain of Select, Filter and GroupBy operators starting
+	 * with the given one for SQL push down. Returns the first operator that
+	 * cannot be pushed down. The plan is not modified; pushed down operators
+	 * are added to opsToRemove.
+	 */
+	private static Operator<? extends Serializable> pushDownOperators(Operator<? extends Serializable> o,
+			SQLQuery sqlStructure, HashMap<String, String> columnsMapping, StringBuilder sqlWhere,
+			StringBuilder sqlGroupBy, List<Operator<? extends Serializable>> opsToRemove, SQLDialect dialect) {
+
 		boolean done = false;
 		Map<String, exprNodeDesc> emptyMap = new HashMap<String, exprNodeDesc>();
 
@@ -208,10 +433,11 @@ public class SQLQueryGenerator {
 				o = o.getChildOperators().get(0);
 
 			}
-			// handle GROUP BY (aggregations)
-			else if (o instanceof GroupByOperator) {
+			// handle GROUP BY (partial aggregations)
+			else if (o instanceof GroupByOperator
+					&& isDecomposable((GroupByOperator) o)) {
 				
-				processGroupBy((GroupByOperator) o, sqlStructure, columnsMapping, exprAliasMap, sqlGroupBy);
+				processGroupBy((GroupByOperator) o, sqlStructure, columnsMapping, exprAliasMap, sqlGroupBy, dialect);
 
 				opsToRemove.add(o);
 				o = o.getChildOperators().get(0);
@@ -221,25 +447,376 @@ public class SQLQueryGenerator {
 			}
 		}
 
-		sqlStructure.sqlQuery = buildSQLQuery(sqlStructure, alias, tbl, sqlWhere, sqlGroupBy);
+		return o;
+	}
+	
+	/**
+	 * Table of a join with its SQL query parts
+	 */
+	private static class JoinSide {
+		String alias;
+		Table tbl;
+		TableScanOperator tableScanOp;
+		SQLQuery sqlStructure;
+		HashMap<String, String> columnsMapping = new HashMap<String, String>();
+		StringBuilder sqlWhere = new StringBuilder();
+		ReduceSinkOperator reduceSinkOp;
+	}
+
+	/**
+	 * Semi-join reduction of a table: a condition added to its SQL query or
+	 * a filter its readers apply to the join key column
+	 */
+	private static class SemiJoin {
+		String sqlCondition;
+		String filter;
+		String keyColumn;
+	}
+
+	/**
+	 * Pushes a two-way inner equi-join down into the chunk databases if both
+	 * tables are co-partitioned on one of the join keys (see
+	 * Catalog.isCoPartitioned). Each chunk then joins its parts of both
+	 * tables, the scan of the first table returns the join's output rows and
+	 * Hive's reduce-side join is removed (the job becomes map-only). Returns
+	 * false without modifying the plan if the join cannot be pushed down
+	 * (see processSemiJoin for other inner equi-joins).
+	 */
+	@SuppressWarnings("unchecked")
+	private static boolean processJoin(HiveConf conf, QB qb, HashMap<String, Operator<? extends Serializable>> topOps,
+			List<Task<? extends Serializable>> rootTasks, String[] aliases, Map<String, SemiJoin> semiJoins) {
+
+		LOG.debug("Join : " + aliases[0] + ", " + aliases[1]);
+
+		JobConf job = new JobConf(conf);
+		SQLDialect dialect = SQLDialect.forRelation(job, qb.getMetaData()
+				.getTableForAlias(aliases[0]).getName());
+
+		// analyze both sides up to their ReduceSinkOperators (ordered by tag)
+		JoinSide[] sides = new JoinSide[2];
+		for (String alias : aliases) {
+			JoinSide side = new JoinSide();
+			side.alias = alias;
+			side.tbl = qb.getMetaData().getTableForAlias(alias);
+			side.tableScanOp = (TableScanOperator) topOps.get(alias);
+			side.sqlStructure = new SQLQuery(side.tbl.getName(), alias);
+			generateDefaultSchema(side.sqlStructure, side.tbl);
+
+			StringBuilder sqlGroupBy = new StringBuilder();
+			List<Operator<? extends Serializable>> ops = new ArrayList<Operator<? extends Serializable>>();
+			Operator<? extends Serializable> o = pushDownOperators(side.tableScanOp.getChildOperators().get(0),
+					side.sqlStructure, side.columnsMapping, side.sqlWhere, sqlGroupBy, ops, dialect);
+			for (Operator<? extends Serializable> op : ops) {
+				if (op instanceof GroupByOperator) {
+					return false;
+				}
+			}
+			if (!(o instanceof ReduceSinkOperator)) {
+				return false;
+			}
+			side.reduceSinkOp = (ReduceSinkOperator) o;
+			int tag = side.reduceSinkOp.getConf().getTag();
+			if (tag < 0 || tag > 1 || sides[tag] != null) {
+				return false;
+			}
+			sides[tag] = side;
+		}
+		JoinSide left = sides[0];
+		JoinSide right = sides[1];
+
+		// both sides must feed the same inner join
+		if (left.reduceSinkOp.getChildOperators().size() != 1
+				|| !(left.reduceSinkOp.getChildOperators().get(0) instanceof JoinOperator)
+				|| right.reduceSinkOp.getChildOperators().size() != 1
+				|| right.reduceSinkOp.getChildOperators().get(0) != left.reduceSinkOp.getChildOperators().get(0)) {
+			return false;
+		}
+		JoinOperator joinOp = (JoinOperator) left.reduceSinkOp.getChildOperators().get(0);
+		joinDesc join = joinOp.getConf();
+		joinCond[] conds = join.getConds();
+		if (conds.length != 1 || conds[0].getType() != joinDesc.INNER_JOIN) {
+			return false;
+		}
+
+		// join keys
+		List<exprNodeDesc> leftKeys = left.reduceSinkOp.getConf().getKeyCols();
+		List<exprNodeDesc> rightKeys = right.reduceSinkOp.getConf().getKeyCols();
+		if (leftKeys.isEmpty() || leftKeys.size() != rightKeys.size()) {
+			return false;
+		}
+		Catalog catalog = Catalog.getInstance(job);
+		StringBuilder sqlOn = new StringBuilder();
+		boolean coPartitioned = false;
+		for (int i = 0; i < leftKeys.size(); i++) {
+			String leftCol = getSideColumn(left, leftKeys.get(i));
+			String rightCol = getSideColumn(right, rightKeys.get(i));
+			if (leftCol == null || rightCol == null) {
+				return false;
+			}
+			if (sqlOn.length() > 0) {
+				sqlOn.append(" AND ");
+			}
+			sqlOn.append(getSideColumnSQL(left, leftCol, dialect)).append(" = ")
+					.append(getSideColumnSQL(right, rightCol, dialect));
+			coPartitioned |= catalog.isCoPartitioned(left.tbl.getName(),
+					leftCol, right.tbl.getName(), rightCol);
+		}
+		if (!coPartitioned) {
+			LOG.info("Join of " + left.tbl.getName() + " and "
+					+ right.tbl.getName()
+					+ " is not co-partitioned on the join key - not pushed down");
+			if (conf.getBoolean(DBConst.DB_SEMIJOIN, false)) {
+				processSemiJoin(job, sides, getSideColumn(left, leftKeys.get(0)),
+						getSideColumn(right, rightKeys.get(0)), semiJoins);
+			}
+			return false;
+		}
+
+		// join output row: the values of both sides in tag order
+		SQLQuery sqlStructure = new SQLQuery(left.tbl.getName(), left.alias);
+		// the chunks of the first table that may contain its rows are read
+		sqlStructure.chunkConditions.addAll(left.sqlStructure.chunkConditions);
+		List<String> outputColumns = join.getOutputColumnNames();
+		int k = 0;
+		for (int tag = 0; tag < sides.length; tag++) {
+			for (exprNodeDesc e : join.getExprs().get(Byte.valueOf((byte) tag))) {
+				exprNodeDesc value = getReduceSinkValue(sides[tag].reduceSinkOp, e);
+				String col = value == null ? null : getSideColumn(sides[tag], value);
+				if (col == null || k >= outputColumns.size()) {
+					return false;
+				}
+				String colSQL = getSideColumnSQL(sides[tag], col, dialect);
+				if (sqlStructure.columnList.contains(colSQL)) {
+					return false;
+				}
+				sqlStructure.addColumn(colSQL, e.getTypeString());
+				sqlStructure.putColumnAlias(colSQL, outputColumns.get(k++));
+			}
+		}
+
+		mapredWork work = getReducerWork(rootTasks, joinOp);
+		if (work == null) {
+			return false;
+		}
+
+		StringBuilder sqlSelect = new StringBuilder();
+		for (String name : sqlStructure.columnList) {
+			sqlSelect.append(", ").append(name).append(" AS ").append(
+					sqlStructure.getColumnAlias(name));
+		}
+		sqlSelect.deleteCharAt(0);
+
+		StringBuilder sqlQuery = new StringBuilder();
+		sqlQuery.append("SELECT ").append(sqlSelect).append(" FROM ");
+		for (JoinSide side : sides) {
+			if (side == right) {
+				sqlQuery.append(" JOIN ");
+			}
+			sqlQuery.append("(").append(buildSQLQuery(side.sqlStructure, side.alias, side.tbl,
+					side.sqlWhere, new StringBuilder(), new StringBuilder(), null, dialect));
+			sqlQuery.append(") AS ").append(dialect.quoteIdentifier(side.alias));
+		}
+		sqlQuery.append(" ON ").append(sqlOn).append(";");
+		sqlStructure.sqlQuery = sqlQuery.toString();
 
 		LOG.info(sqlStructure.sqlQuery);
 
-		// removing operators!
-		for (Operator op : opsToRemove) {
-			removeOperator(op);
+		// the join's operators now follow the first table's scan directly
+		List<Operator<? extends Serializable>> children = joinOp.getChildOperators();
+		left.tableScanOp.getChildOperators().clear();
+		left.tableScanOp.getChildOperators().addAll(children);
+		for (Operator child : children) {
+			child.getParentOperators().remove(joinOp);
+			child.getParentOperators().add(left.tableScanOp);
 		}
+		left.tableScanOp.getSchema().setSignature(sqlStructure.getTableRowSchema());
 
-		// hack rowSchema in TableScanOp
-		tableScanOp.getSchema().setSignature(sqlStructure.getTableRowSchema());
+		// the second table is not read anymore and no reducer is needed
+		removeAlias(work, right.alias);
+		work.setReducer(null);
+		work.setNumReduceTasks(0);
+		work.setNeedsTagging(false);
 
-		return sqlStructure;
+		configureTable(conf, rootTasks, left.alias, left.tbl, sqlStructure, null);
+
+		return true;
 	}
-	
+
+	/**
+	 * Semi-join reduction of an inner equi-join executed by Hive: if only one
+	 * side's rows are filtered, the distinct values of its join key column
+	 * are collected from its chunks (up to DB_SEMIJOIN_MAX_KEYS). The other
+	 * side then returns only rows whose key is among them. Few keys (up to
+	 * DB_SEMIJOIN_IN_LIST_SIZE) are added to its SQL query as an IN list,
+	 * more are passed to its readers as a Bloom filter (DBSemiJoinFilter).
+	 * Only int, bigint and string keys are reduced: keys are compared by
+	 * their string values, and those of floating point or date/time values
+	 * depend on the database and driver. The results are put into semiJoins
+	 * by alias.
+	 */
+	private static void processSemiJoin(JobConf job, JoinSide[] sides,
+			String leftCol, String rightCol, Map<String, SemiJoin> semiJoins) {
+
+		// keys of the filtered side reduce the unfiltered one
+		int build;
+		if (sides[0].sqlWhere.length() > 0 && sides[1].sqlWhere.length() == 0) {
+			build = 0;
+		} else if (sides[1].sqlWhere.length() > 0 && sides[0].sqlWhere.length() == 0) {
+			build = 1;
+		} else {
+			return;
+		}
+		JoinSide buildSide = sides[build];
+		JoinSide probeSide = sides[1 - build];
+		String buildCol = build == 0 ? leftCol : rightCol;
+		String probeCol = build == 0 ? rightCol : leftCol;
+
+		// keys are compared by string value, so both columns must have the
+		// same type with a canonical string form (the readers of a relation
+		// share the filter, hence no self-joins)
+		String type = buildSide.sqlStructure.getField(buildCol);
+		if (!SEMIJOIN_KEY_TYPES.contains(type)
+				|| !type.equals(probeSide.sqlStructure.getField(probeCol))
+				|| buildSide.tbl.getName().equals(probeSide.tbl.getName())) {
+			return;
+		}
+
+		String relation = buildSide.tbl.getName();
+		Collection<DBChunk> chunks = DBChunkPruner.prune(job, relation, Catalog
+				.getInstance(job).getSplitLocationStructure(relation),
+				buildSide.sqlStructure.getChunkPredicate());
+		String sql = buildSQLQuery(buildSide.sqlStructure, buildSide.alias, buildSide.tbl,
+				buildSide.sqlWhere, new StringBuilder(), new StringBuilder(), null,
+				SQLDialect.forRelation(job, relation));
+		Set<String> keys = DBSemiJoinFilter.collectKeys(job, chunks, sql,
+				buildSide.sqlStructure.getColumnAlias(buildCol), job.getInt(
+						DBConst.DB_SEMIJOIN_MAX_KEYS, DBConst.DEFAULT_SEMIJOIN_MAX_KEYS));
+		if (keys == null) {
+			return;
+		}
+
+		SemiJoin semiJoin = new SemiJoin();
+		if (keys.size() <= job.getInt(DBConst.DB_SEMIJOIN_IN_LIST_SIZE,
+				DBConst.DEFAULT_SEMIJOIN_IN_LIST_SIZE)) {
+			if (keys.isEmpty()) {
+				semiJoin.sqlCondition = "1 = 0";
+			} else {
+				StringBuilder sqlIn = new StringBuilder();
+				for (String key : new TreeSet<String>(keys)) {
+					sqlIn.append(", ").append(probeSide.sqlStructure.getLiteral(probeCol, key));
+				}
+				semiJoin.sqlCondition = probeCol + " IN (" + sqlIn.substring(2) + ")";
+			}
+		} else {
+			try {
+				semiJoin.filter = DBSemiJoinFilter.create(keys).serialize();
+			} catch (IOException e) {
+				LOG.warn("Could not serialize semi-join filter: " + e);
+				return;
+			}
+			semiJoin.keyColumn = probeSide.sqlStructure.getColumnAlias(probeCol);
+		}
+		semiJoins.put(probeSide.alias, semiJoin);
+
+		LOG.info("Semi-join reduction of " + probeSide.tbl.getName() + " by "
+				+ keys.size() + " keys of " + relation
+				+ (semiJoin.filter == null ? " (IN list)" : " (Bloom filter)"));
+	}
+
+	/**
+	 * Returns the table column an expression of a join side refers to or
+	 * null if it is not a column returned by the side's SQL query
+	 */
+	private static String getSideColumn(JoinSide side, exprNodeDesc expr) {
+		if (!(expr instanceof exprNodeColumnDesc)) {
+			return null;
+		}
+		String colStr = getColumnFromExpr(expr, side.columnsMapping);
+		return side.sqlStructure.columnList.contains(colStr) ? colStr : null;
+	}
+
+	/**
+	 * Returns a join side's column as referenced in the joined SQL query
+	 */
+	private static String getSideColumnSQL(JoinSide side, String column,
+			SQLDialect dialect) {
+		return dialect.quoteIdentifier(side.alias) + "."
+				+ side.sqlStructure.getColumnAlias(column);
+	}
+
 	/**
-	 * Builds actual SQL query to execute against DBMS
+	 * Returns the value expression of a ReduceSinkOperator that a join
+	 * expression (VALUE.<column>) refers to
 	 */
-	private static String buildSQLQuery(SQLQuery sqlStructure, String alias, Table tbl, StringBuilder sqlWhere, StringBuilder sqlGroupBy) {
+	private static exprNodeDesc getReduceSinkValue(ReduceSinkOperator op,
+			exprNodeDesc joinExpr) {
+		if (!(joinExpr instanceof exprNodeColumnDesc)) {
+			return null;
+		}
+		String column = ((exprNodeColumnDesc) joinExpr).getColumn();
+		column = column.substring(column.lastIndexOf('.') + 1);
+		int i = op.getConf().getOutputValueColumnNames().indexOf(column);
+		return i < 0 ? null : op.getConf().getValueCols().get(i);
+	}
+
+	/**
+	 * Finds the map-reduce work whose reducer is the given operator
+	 */
+	private static mapredWork getReducerWork(List<Task<? extends Serializable>> tasks,
+			Operator<? extends Serializable> reducer) {
+		if (tasks == null) {
+			return null;
+		}
+		for (Task<? extends Serializable> task : tasks) {
+			if (task.getWork() instanceof mapredWork
+					&& ((mapredWork) task.getWork()).getReducer() == reducer) {
+				return (mapredWork) task.getWork();
+			}
+			mapredWork work = getReducerWork(task.getChildTasks(), reducer);
+			if (work != null) {
+				return work;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes a table alias (and paths read only for it) from a map-reduce
+	 * work
+	 */
+	private static void removeAlias(mapredWork work, String alias) {
+		for (Iterator<String> it = work.getAliasToWork().keySet().iterator(); it.hasNext();) {
+			if (isAlias(it.next(), alias)) {
+				it.remove();
+			}
+		}
+		for (Iterator<Map.Entry<String, ArrayList<String>>> it = work.getPathToAliases().entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, ArrayList<String>> e = it.next();
+			for (Iterator<String> a = e.getValue().iterator(); a.hasNext();) {
+				if (isAlias(a.next(), alias)) {
+					a.remove();
+				}
+			}
+			if (e.getValue().isEmpty()) {
+				work.getPathToPartitionInfo().remove(e.getKey());
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Matches a plan alias (possibly prefixed by a subquery alias)
+	 */
+	private static boolean isAlias(String planAlias, String alias) {
+		return planAlias.equals(alias) || planAlias.endsWith(":" + alias);
+	}
+
+	/**
+	 * Builds actual SQL query to execute against DBMS (without trailing
+	 * semicolon)
+	 */
+	private static String buildSQLQuery(SQLQuery sqlStructure, String alias, Table tbl, StringBuilder sqlWhere, StringBuilder sqlGroupBy,
+			StringBuilder sqlOrderBy, Integer limit, SQLDialect dialect) {
 		// final SQL query
 		StringBuilder sqlSelect = new StringBuilder();
 		StringBuilder sqlFrom = new StringBuilder();
@@ -254,7 +831,8 @@ public class SQLQueryGenerator {
 
 		sqlSelect.deleteCharAt(0);
 
-		sqlFrom.append(tbl.getName()).append(" AS ").append(alias);
+		sqlFrom.append(dialect.quoteIdentifier(tbl.getName())).append(" AS ")
+				.append(dialect.quoteIdentifier(alias));
 
 		StringBuilder sqlQuery = new StringBuilder();
 		sqlQuery.append("SELECT ").append(sqlSelect).append(" ");
@@ -266,10 +844,17 @@ public class SQLQueryGenerator {
 			sqlGroupBy.deleteCharAt(0);
 			sqlQuery.append(" GROUP BY ").append(sqlGroupBy).append(" ");
 		}
+		if (sqlOrderBy.length() > 0) {
+			sqlOrderBy.deleteCharAt(0);
+			sqlQuery.append(" ORDER BY ").append(sqlOrderBy);
+		}
 
-		sqlQuery.append(";");
+		String sql = sqlQuery.toString();
+		if (limit != null) {
+			sql = dialect.limit(sql, limit, 0);
+		}
 		
-		return sqlQuery.toString();
+		return sql;
 	}
 
 	/**
@@ -327,14 +912,141 @@ public class SQLQueryGenerator {
 				sqlWhere.append(" AND ");
 
 			sqlWhere.append(condition);
+
+			addChunkConditions(func, sqlStructure, columnsMapping);
 		}
 		
 	}
+
+	/**
+	 * Records comparisons of base table columns with constants that must
+	 * hold for all rows passing a filter (the predicate itself or terms of
+	 * its top-level conjunction) for chunk pruning
+	 */
+	private static void addChunkConditions(exprNodeFuncDesc func, SQLQuery sqlStructure,
+			HashMap<String, String> columnsMapping) {
+
+		String name = FunctionRegistry.getInfo(func.getUDFClass())
+				.getDisplayName().toLowerCase();
+		List<exprNodeDesc> params = func.getChildExprs();
+
+		if (name.equals("and") || name.equals("&&")) {
+			for (exprNodeDesc param : params) {
+				if (param instanceof exprNodeFuncDesc) {
+					addChunkConditions((exprNodeFuncDesc) param, sqlStructure, columnsMapping);
+				}
+			}
+			return;
+		}
+
+		String op = name.equals("==") ? "=" : name;
+		if (params.size() != 2 || !(op.equals("=") || op.equals("<")
+				|| op.equals("<=") || op.equals(">") || op.equals(">="))) {
+			return;
+		}
+		exprNodeDesc column = params.get(0);
+		exprNodeDesc constant = params.get(1);
+		if (column instanceof exprNodeConstantDesc) {
+			// constant op column
+			column = params.get(1);
+			constant = params.get(0);
+			op = op.startsWith("<") ? op.replace('<', '>') : op.replace('>', '<');
+		}
+		if (!(column instanceof exprNodeColumnDesc)
+				|| !(constant instanceof exprNodeConstantDesc)
+				|| ((exprNodeConstantDesc) constant).getValue() == null) {
+			return;
+		}
+		String colStr = getColumnFromExpr(column, columnsMapping);
+		if (sqlStructure.getField(colStr) != null) {
+			sqlStructure.addChunkCondition(colStr, op,
+					((exprNodeConstantDesc) constant).getValue());
+		}
+	}
 	
 	/**
-	 * Handles GroupByOperator 
+	 * Returns true if the aggregations of a map-side GroupByOperator can be
+	 * computed by the chunk databases: every aggregate is one of COUNT, SUM,
+	 * MIN, MAX and AVG of a column (or COUNT(*)) without DISTINCT. The
+	 * databases then return the partial results (see partialAggregateSQL)
+	 * which Hive's reduce-side GroupBy merges as it would merge those of its
+	 * own map-side aggregation.
+	 */
+	private static boolean isDecomposable(GroupByOperator op) {
+		if (op.getConf().getAggregators() == null) {
+			return true;
+		}
+		for (aggregationDesc a : op.getConf().getAggregators()) {
+			if (a.getDistinct()) {
+				return false;
+			}
+			String aggName = FunctionRegistry.getInfo(a.getAggregationClass())
+					.getDisplayName().toLowerCase();
+			List<exprNodeDesc> params = a.getParameters();
+			if (aggName.equals("count")) {
+				if (params.size() > 1
+						|| (params.size() == 1
+								&& !(params.get(0) instanceof exprNodeColumnDesc)
+								&& !(params.get(0) instanceof exprNodeConstantDesc))) {
+					return false;
+				}
+			} else if (aggName.equals("sum") || aggName.equals("min")
+					|| aggName.equals("max") || aggName.equals("avg")) {
+				if (params.size() != 1
+						|| !(params.get(0) instanceof exprNodeColumnDesc)) {
+					return false;
+				}
+			} else {
+				LOG.debug("Aggregate " + aggName + " is not pushed down");
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns SQL computing the partial result of an aggregate over a column
+	 * (null for COUNT(*)) in the form Hive's UDAF evaluators return from
+	 * terminatePartial(). AVG returns "count/sum" (NULL if there are no
+	 * values).
+	 */
+	private static String partialAggregateSQL(String aggName, String colStr,
+			SQLDialect dialect) {
+		String name = aggName.toLowerCase();
+		if (name.equals("count") && colStr == null) {
+			return "count(*)";
+		}
+		if (name.equals("avg")) {
+			String count = "count(" + colStr + ")";
+			return "CASE WHEN " + count + " = 0 THEN NULL ELSE "
+					+ dialect.concat(dialect.castToString(count), "'/'",
+							dialect.castToString("sum(" + colStr + ")"))
+					+ " END";
+		}
+		return aggName + "(" + colStr + ")";
+	}
+
+	/**
+	 * Returns the Hive type of an aggregate's partial result
+	 */
+	private static String partialAggregateType(String aggName,
+			aggregationDesc a) {
+		String name = aggName.toLowerCase();
+		if (name.equals("count")) {
+			return "bigint";
+		} else if (name.equals("avg")) {
+			return "string";
+		} else if (name.equals("min") || name.equals("max")) {
+			return a.getParameters().get(0).getTypeString();
+		}
+		return "double";
+	}
+
+	/**
+	 * Handles GroupByOperator (map-side, see isDecomposable)
 	 */		
-	private static void processGroupBy(GroupByOperator op, SQLQuery sqlStructure, HashMap<String, String> columnsMapping, Map<String, exprNodeDesc> exprAliasMap, StringBuilder sqlGroupBy) {
+	private static void processGroupBy(GroupByOperator op, SQLQuery sqlStructure, HashMap<String, String> columnsMapping, Map<String, exprNodeDesc> exprAliasMap,
+			StringBuilder sqlGroupBy, SQLDialect dialect) {
 		 
 		LOG.debug(" GroupBy");
 		StringBuilder sb = new StringBuilder();
@@ -438,17 +1150,21 @@ public class SQLQueryGenerator {
 				sb.append(a.getExprString() + ", ");
 
 				String aggName = aggInfo.getDisplayName();
-				String colStr = getColumnFromExpr(a.getParameters()
-						.get(0), columnsMapping);
+				String colStr = null;
+				if (!a.getParameters().isEmpty()
+						&& a.getParameters().get(0) instanceof exprNodeColumnDesc) {
+					colStr = getColumnFromExpr(a.getParameters().get(0),
+							columnsMapping);
+				}
 
-				String aggSQL = aggName + "(" + colStr + ")";
-				String aggAlias = aggName + "_" + colStr;
+				String aggSQL = partialAggregateSQL(aggName, colStr, dialect);
+				String aggAlias = aggName + "_" + (colStr == null ? "all" : colStr);
 				if (!columns.isEmpty()) {
 					aggAlias = columns.get(0);
 					columns.remove(0);
 				}
 
-				sqlStructure.addColumn(aggSQL, "double");
+				sqlStructure.addColumn(aggSQL, partialAggregateType(aggName, a));
 				sqlStructure.putColumnAlias(aggSQL, aggAlias);
 
 			}
@@ -460,6 +1176,79 @@ public class SQLQueryGenerator {
 		
 	}
 	
+	/**
+	 * Handles the operator following the pushed down ones if the query has a
+	 * LIMIT: a LimitOperator (map-only query) or the ReduceSinkOperator of an
+	 * ORDER BY/SORT BY, whose reducer only extracts and limits the sorted
+	 * rows (not a GROUP BY or JOIN) and whose keys must be columns returned
+	 * by the query. Since the first rows of the result are among the first
+	 * rows of each chunk, Hive's sort and limit only merge the chunks' top
+	 * rows then. Numeric keys are sorted by the database as they are; string
+	 * keys only if the dialect can sort them by character code as Hive does
+	 * ({@link SQLDialect#binarySortable}). Returns false if the limit cannot
+	 * be pushed down.
+	 */
+	private static boolean processTopN(Operator<? extends Serializable> op, SQLQuery sqlStructure,
+			HashMap<String, String> columnsMapping, SQLDialect dialect, StringBuilder sqlOrderBy) {
+
+		if (op instanceof LimitOperator) {
+			LOG.debug(" Limit");
+			return true;
+		}
+		if (!(op instanceof ReduceSinkOperator)) {
+			return false;
+		}
+
+		List<Operator<? extends Serializable>> reducer = op.getChildOperators();
+		if (reducer == null || reducer.size() != 1
+				|| !(reducer.get(0) instanceof ExtractOperator)) {
+			return false;
+		}
+		List<Operator<? extends Serializable>> next = reducer.get(0)
+				.getChildOperators();
+		if (next == null || next.size() != 1
+				|| !(next.get(0) instanceof LimitOperator)) {
+			return false;
+		}
+
+		LOG.debug(" ReduceSink (sort)");
+		reduceSinkDesc conf = ((ReduceSinkOperator) op).getConf();
+		String order = null;
+		if (conf.getKeySerializeInfo() != null) {
+			order = conf.getKeySerializeInfo().getProperties().getProperty(
+					Constants.SERIALIZATION_SORT_ORDER);
+		}
+
+		StringBuilder sb = new StringBuilder();
+		int i = 0;
+		for (exprNodeDesc e : conf.getKeyCols()) {
+			if (!(e instanceof exprNodeColumnDesc)) {
+				return false;
+			}
+			String colStr = getColumnFromExpr(e, columnsMapping);
+			if (!sqlStructure.columnList.contains(colStr)) {
+				return false;
+			}
+			String key = colStr;
+			String type = e.getTypeString();
+			if ("string".equals(type)) {
+				key = dialect.binarySortable(colStr);
+			} else if (!NUMERIC_TYPES.contains(type)) {
+				key = null;
+			}
+			if (key == null) {
+				return false;
+			}
+			boolean ascending = order == null || i >= order.length()
+					|| order.charAt(i) != '-';
+			sb.append(", ").append(dialect.sortKey(key, ascending));
+			i++;
+		}
+
+		sqlOrderBy.append(sb);
+		return true;
+	}
+
 	/**
 	 * Takes the first column from expression
 	 */
@@ -17,8 +17,10 @@ package edu.yale.cs.hadoopdb.sms.connector;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.logging.Log;
@@ -35,6 +37,10 @@ import org.apache.hadoop.mapred.Reporter;
 
 import edu.yale.cs.hadoopdb.catalog.Catalog;
 import edu.yale.cs.hadoopdb.connector.DBChunk;
+import edu.yale.cs.hadoopdb.connector.DBChunkPruner;
+import edu.yale.cs.hadoopdb.connector.DBChunkSplitter;
+import edu.yale.cs.hadoopdb.connector.DBChunkStatistics;
+import edu.yale.cs.hadoopdb.connector.DBConst;
 import edu.yale.cs.hadoopdb.sms.connector.SMSConfiguration;
 import edu.yale.cs.hadoopdb.sms.connector.SMSInputFormat;
 import edu.yale.cs.hadoopdb.sms.connector.SMSInputSplit;
@@ -51,6 +57,27 @@ public class SMSInputFormat extends FileInputFormat<LongWritable, Text>
 
 	public static final String DB_QUERY_SCHEMA_PREFIX = "hadoopdb.query.schema";
 	public static final String DB_SQL_QUERY_PREFIX = "hadoopdb.sql.query";
+	/**
+	 * Set (per relation) by the planner to the pushed down conditions used
+	 * for chunk pruning (see {@link DBChunkPruner})
+	 */
+	public static final String DB_CHUNK_PREDICATE_PREFIX = "hadoopdb.chunk.predicate";
+	/**
+	 * Set (per relation) by the planner if rows are to be returned in the
+	 * binary row format read by {@link edu.yale.cs.hadoopdb.sms.SMSBinarySerDe}
+	 */
+	public static final String DB_BINARY_ROW_PREFIX = "hadoopdb.binary.row";
+	/**
+	 * Set (per relation) by the planner to a serialized
+	 * {@link edu.yale.cs.hadoopdb.connector.DBSemiJoinFilter} of the join keys
+	 * of the other side of a join
+	 */
+	public static final String DB_SEMIJOIN_FILTER_PREFIX = "hadoopdb.semijoin.filter";
+	/**
+	 * Set (per relation) by the planner to the label of the join key column
+	 * in the relation's SQL query result
+	 */
+	public static final String DB_SEMIJOIN_KEY_PREFIX = "hadoopdb.semijoin.key";
 
 	protected JobConf conf;
 
@@ -69,7 +96,10 @@ public class SMSInputFormat extends FileInputFormat<LongWritable, Text>
 	public RecordReader<LongWritable, Text> getRecordReader(InputSplit split,
 			JobConf conf, Reporter reporter) throws IOException {
 		try {
-			return new SMSRecordReader((SMSInputSplit) split, conf);
+			SMSRecordReader reader = new SMSRecordReader((SMSInputSplit) split,
+					conf);
+			reader.setReporter(reporter);
+			return reader;
 		} catch (SQLException e) {
 			throw new IOException(e);
 		}
@@ -79,7 +109,12 @@ public class SMSInputFormat extends FileInputFormat<LongWritable, Text>
 	 * Retrieves path information from FileInputFormat super class and then
 	 * relation from path using the job configuration. Obtains the chunk locations
 	 * from the HadoopDB catalog for the given relation and then creates a split for each chunk
-	 * of a relation. The splits are provided with path, chunk and relation.
+	 * of a relation that may match the pushed down predicate (or for each key range of a chunk
+	 * if sub-splitting is configured). Only queries into which the planner put the range
+	 * placeholder ({@link DBConst#SPLIT_RANGE_PLACEHOLDER}) are sub-split: wrapping the others
+	 * would filter on output columns that are renamed, aggregated or joined.
+	 * The splits are provided with path, chunk, relation and a row estimate and are returned
+	 * largest first.
 	 */
 	@Override
 	public InputSplit[] getSplits(JobConf job, int numSplits)
@@ -99,20 +134,48 @@ public class SMSInputFormat extends FileInputFormat<LongWritable, Text>
 		}
 
 		SMSConfiguration DBConf = rel_DBConf.get(relation);
-		Collection<DBChunk> chunks = DBConf.getChunks();
-
-		InputSplit[] splits = new InputSplit[chunks.size()];
-		int i = 0;
+		Collection<DBChunk> chunks = DBChunkPruner.prune(job, relation, DBConf
+				.getChunks(), job.get(DB_CHUNK_PREDICATE_PREFIX + "_" + relation));
+
+		List<SMSInputSplit> splits = new ArrayList<SMSInputSplit>(chunks.size());
+		String sqlQuery = job.get(DB_SQL_QUERY_PREFIX + "_" + relation);
+		boolean subSplit = DBChunkSplitter.isEnabled(job);
+		if (subSplit && !sqlQuery.contains(DBConst.SPLIT_RANGE_PLACEHOLDER)) {
+			LOG.info("Query of relation " + relation
+					+ " cannot be restricted to key ranges - chunks are not split");
+			subSplit = false;
+		}
 
 		for (DBChunk chunk : chunks) {
-			SMSInputSplit split = new SMSInputSplit();
-			split.setPath(p);
-			split.setRelation(relation);
-			split.setChunk(chunk);
-			splits[i] = split;
-			i++;
+			List<DBChunkSplitter.Range> ranges = subSplit ? DBChunkSplitter
+					.getRanges(job, chunk, relation) : null;
+			long estimatedRows = DBChunkStatistics.estimateRows(job, chunk,
+					relation, sqlQuery);
+
+			if (ranges == null || ranges.size() < 2) {
+				SMSInputSplit split = createSplit(p, relation, chunk);
+				split.setEstimatedRows(estimatedRows);
+				splits.add(split);
+			} else {
+				for (DBChunkSplitter.Range range : ranges) {
+					SMSInputSplit split = createSplit(p, relation, chunk);
+					split.setRange(job.get(DBConst.DB_SPLIT_COLUMN), range);
+					split.setEstimatedRows(estimatedRows / ranges.size());
+					splits.add(split);
+				}
+			}
 		}
-		return splits;
+
+		DBChunkStatistics.sortLargestFirst(splits);
+		return splits.toArray(new InputSplit[splits.size()]);
+	}
+
+	private SMSInputSplit createSplit(Path p, String relation, DBChunk chunk) {
+		SMSInputSplit split = new SMSInputSplit();
+		split.setPath(p);
+		split.setRelation(relation);
+		split.setChunk(chunk);
+		return split;
 	}
 
 }
@@ -26,16 +26,21 @@ import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.RecordReader;
 
 import edu.yale.cs.hadoopdb.connector.AbstractDBRecordReader;
+import edu.yale.cs.hadoopdb.connector.DBCounter;
+import edu.yale.cs.hadoopdb.connector.DBSemiJoinFilter;
 import edu.yale.cs.hadoopdb.sms.connector.SMSInputFormat;
 import edu.yale.cs.hadoopdb.sms.connector.SMSInputSplit;
 import edu.yale.cs.hadoopdb.sms.connector.SMSRecordReader;
+import edu.yale.cs.hadoopdb.util.BinaryRowEncoder;
 import edu.yale.cs.hadoopdb.util.ParseSchema;
+import edu.yale.cs.hadoopdb.util.RowEncoder;
 
 /**
  * SMSRecordReaders extends AbstractDBRecordReader and specializes the
  * value class to Text (in contrast to DBRecordReader that allows
  * arbitrary value classes). Hive expects the value to be set of field values
- * delimited by a special character {@link ParseSchema}.
+ * delimited by a special character {@link ParseSchema}, or a binary row
+ * if enabled with {@link edu.yale.cs.hadoopdb.connector.DBConst#DB_SMS_BINARY_ROWS}.
  */
 public class SMSRecordReader extends AbstractDBRecordReader implements RecordReader<LongWritable, Text> {
 
@@ -43,22 +48,44 @@ public class SMSRecordReader extends AbstractDBRecordReader implements RecordRea
 			.getName());
 	
 	private ParseSchema parser;
+	private RowEncoder encoder;
 	private JobConf conf;
 	private SMSInputSplit split;
+	private DBSemiJoinFilter semiJoinFilter;
+	private String semiJoinKey;
+	private int semiJoinKeyIndex = 0;
+	private long filteredRows = 0;
 
 	/**
 	 * Each relation is associated with a SQL query and schema in 
 	 * the job configuration. This is retrieved and a {@link ParseSchema} object
 	 * is created to retrieve the required fields from the result set
-	 * and serialize them into a delimited string.
+	 * and a {@link RowEncoder} serializes them into a delimited string (or
+	 * a {@link BinaryRowEncoder} into a binary row, if the planner chose the
+	 * binary row format for the relation). If the planner passed a semi-join
+	 * filter for the relation, rows whose join key does not pass it are
+	 * skipped.
 	 */
-	public SMSRecordReader(SMSInputSplit split, JobConf conf) throws SQLException {
+	public SMSRecordReader(SMSInputSplit split, JobConf conf) throws SQLException, IOException {
 		
 		this.split = split;
 		this.conf = conf;
 		parser = new ParseSchema(conf
 				.get(SMSInputFormat.DB_QUERY_SCHEMA_PREFIX + "_"
 						+ split.getRelation()));
+		if (conf.getBoolean(SMSInputFormat.DB_BINARY_ROW_PREFIX + "_"
+				+ split.getRelation(), false)) {
+			encoder = new BinaryRowEncoder(parser);
+		} else {
+			encoder = new RowEncoder(parser);
+		}
+		String filter = conf.get(SMSInputFormat.DB_SEMIJOIN_FILTER_PREFIX + "_"
+				+ split.getRelation());
+		if (filter != null && filter.length() > 0) {
+			semiJoinFilter = DBSemiJoinFilter.deserialize(filter);
+			semiJoinKey = conf.get(SMSInputFormat.DB_SEMIJOIN_KEY_PREFIX + "_"
+					+ split.getRelation());
+		}
 		
 		setupDB(split, conf);
 	}
@@ -75,19 +102,32 @@ public class SMSRecordReader extends AbstractDBRecordReader implements RecordRea
 		return new Text();
 	}
 
+	/**
+	 * Counts the length of the encoded rows
+	 */
+	@Override
+	protected boolean countsBytesDecoded() {
+		return true;
+	}
+
 	/**
 	 * Retrieves each row from the result set, serializes it 
-	 * using {@link ParseSchema} and increments the number of rows
-	 * read in.
+	 * using {@link RowEncoder} and increments the number of rows
+	 * read in. Rows rejected by the semi-join filter are skipped.
 	 * @return false if no more rows exist.
 	 */
 	@Override
 	public boolean next(LongWritable key, Text value) throws IOException {
 		try {
-			if (!results.next())
-				return false;
+			do {
+				if (!fetchNext())
+					return false;
+			} while (!passesSemiJoin());
+			if (pos == 0)
+				firstRowTime = System.currentTimeMillis();
 			key.set(pos);
-			value.set(parseResults());
+			encoder.encode(results, value);
+			bytesDecoded += value.getLength();
 			pos++;
 		} catch (SQLException e) {
 			throw new IOException(e);
@@ -95,8 +135,42 @@ public class SMSRecordReader extends AbstractDBRecordReader implements RecordRea
 		return true;
 	}
 
-	private String parseResults() throws SQLException {
-		return parser.serializeRow(results);
+
+	/**
+	 * Tests the row's join key against the semi-join filter by its string
+	 * value (int, bigint or string keys, see {@link DBSemiJoinFilter})
+	 */
+	private boolean passesSemiJoin() throws SQLException {
+		if (semiJoinFilter == null) {
+			return true;
+		}
+		if (semiJoinKeyIndex == 0) {
+			semiJoinKeyIndex = results.findColumn(semiJoinKey);
+		}
+		if (semiJoinFilter.mightContain(results.getString(semiJoinKeyIndex))) {
+			return true;
+		}
+		filteredRows++;
+		return false;
+	}
+
+	/**
+	 * Rows dropped by the semi-join filter count as progress as well
+	 */
+	@Override
+	public float getProgress() throws IOException {
+		if (estimatedRows <= 0) {
+			return 0;
+		}
+		return Math.min(1.0f, (float) (pos + filteredRows) / estimatedRows);
+	}
+
+	@Override
+	protected void publishCounters(long endTime) {
+		super.publishCounters(endTime);
+		if (reporter != null) {
+			reporter.incrCounter(DBCounter.SEMIJOIN_FILTERED_ROWS, filteredRows);
+		}
 	}
 
-}
\ No newline at end of file
+}
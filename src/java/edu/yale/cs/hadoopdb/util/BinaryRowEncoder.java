@@ -0,0 +1,220 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.hadoop.io.Text;
+
+/**
+ * Serializes result set rows in a binary row format, so that numbers are not
+ * printed as text by the record reader and parsed again by Hive. The format
+ * is read by {@link edu.yale.cs.hadoopdb.sms.SMSBinarySerDe}; field encodings
+ * follow the Hive type of each column in the query schema:
+ * 
+ * <pre>
+ * row     := null bitmap (one bit per column, set if NULL) field*
+ * tinyint, smallint, int, bigint := zero-compressed VLong (as WritableUtils)
+ * float, double := IEEE 754 bits, big-endian (4 or 8 bytes)
+ * boolean := one byte (0 or 1)
+ * string (and other types) := VInt length, UTF-8 bytes
+ * </pre>
+ * 
+ * Fields are only written for non-NULL values.
+ */
+public class BinaryRowEncoder extends RowEncoder {
+
+	public static final int BYTE = 0;
+	public static final int SHORT = 1;
+	public static final int INT = 2;
+	public static final int LONG = 3;
+	public static final int FLOAT = 4;
+	public static final int DOUBLE = 5;
+	public static final int BOOLEAN = 6;
+	public static final int STRING = 7;
+
+	private int[] types;
+
+	public BinaryRowEncoder(ParseSchema schema) {
+		super(schema);
+	}
+
+	/**
+	 * Returns the field encoding of a Hive type
+	 */
+	public static int getType(String hiveType) {
+		String type = hiveType.trim().toLowerCase();
+		if (type.equals("tinyint")) {
+			return BYTE;
+		} else if (type.equals("smallint")) {
+			return SHORT;
+		} else if (type.equals("int")) {
+			return INT;
+		} else if (type.equals("bigint")) {
+			return LONG;
+		} else if (type.equals("float")) {
+			return FLOAT;
+		} else if (type.equals("double")) {
+			return DOUBLE;
+		} else if (type.equals("boolean")) {
+			return BOOLEAN;
+		}
+		return STRING;
+	}
+
+	@Override
+	public void bind(ResultSet rs) throws SQLException {
+		super.bind(rs);
+		types = new int[indices.length];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = getType(schema.getTypeName(i + 1));
+		}
+	}
+
+	@Override
+	public void encode(ResultSet rs, Text text) throws SQLException {
+		if (rs != bound) {
+			bind(rs);
+		}
+		int bitmap = (indices.length + 7) / 8;
+		length = 0;
+		ensure(bitmap);
+		for (int i = 0; i < bitmap; i++) {
+			buffer[length++] = 0;
+		}
+		for (int i = 0; i < indices.length; i++) {
+			int index = indices[i];
+			switch (types[i]) {
+			case BYTE:
+			case SHORT:
+			case INT: {
+				int v = rs.getInt(index);
+				if (!rs.wasNull()) {
+					writeVLong(v);
+					continue;
+				}
+				break;
+			}
+			case LONG: {
+				long v = rs.getLong(index);
+				if (!rs.wasNull()) {
+					writeVLong(v);
+					continue;
+				}
+				break;
+			}
+			case FLOAT: {
+				float v = rs.getFloat(index);
+				if (!rs.wasNull()) {
+					writeBigEndian(Float.floatToIntBits(v), 4);
+					continue;
+				}
+				break;
+			}
+			case DOUBLE: {
+				double v = rs.getDouble(index);
+				if (!rs.wasNull()) {
+					writeBigEndian(Double.doubleToLongBits(v), 8);
+					continue;
+				}
+				break;
+			}
+			case BOOLEAN: {
+				boolean v = rs.getBoolean(index);
+				if (!rs.wasNull()) {
+					ensure(1);
+					buffer[length++] = (byte) (v ? 1 : 0);
+					continue;
+				}
+				break;
+			}
+			default: {
+				String v = rs.getString(index);
+				if (v != null) {
+					writeVLong(utf8Length(v));
+					appendString(v);
+					continue;
+				}
+			}
+			}
+			// NULL
+			buffer[i / 8] |= (byte) (1 << (i % 8));
+		}
+		text.set(buffer, 0, length);
+	}
+
+	private void writeBigEndian(long bits, int bytes) {
+		ensure(bytes);
+		for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+			buffer[length++] = (byte) (bits >>> shift);
+		}
+	}
+
+	/**
+	 * Same encoding as WritableUtils.writeVLong
+	 */
+	private void writeVLong(long i) {
+		ensure(9);
+		if (i >= -112 && i <= 127) {
+			buffer[length++] = (byte) i;
+			return;
+		}
+		int len = -112;
+		if (i < 0) {
+			i ^= -1L;
+			len = -120;
+		}
+		long tmp = i;
+		while (tmp != 0) {
+			tmp = tmp >> 8;
+			len--;
+		}
+		buffer[length++] = (byte) len;
+		len = (len < -120) ? -(len + 120) : -(len + 112);
+		for (int idx = len; idx != 0; idx--) {
+			int shiftbits = (idx - 1) * 8;
+			buffer[length++] = (byte) ((i & (0xFFL << shiftbits)) >> shiftbits);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes appendString() writes for a string
+	 */
+	private static int utf8Length(String s) {
+		int n = s.length();
+		int bytes = 0;
+		for (int i = 0; i < n; i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				bytes++;
+			} else if (c < 0x800) {
+				bytes += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < n
+					&& Character.isLowSurrogate(s.charAt(i + 1))) {
+				bytes += 4;
+				i++;
+			} else if (c >= Character.MIN_SURROGATE
+					&& c <= Character.MAX_SURROGATE) {
+				bytes++;
+			} else {
+				bytes += 3;
+			}
+		}
+		return bytes;
+	}
+
+}
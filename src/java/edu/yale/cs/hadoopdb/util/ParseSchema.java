@@ -96,6 +96,18 @@ public class ParseSchema {
 		return buf.substring(1, buf.length());
 	}
 
+	public int getColumnCount() {
+		return cols;
+	}
+
+	public String getLabel(int index) {
+		return indexLabelMap.get(index - 1);
+	}
+
+	public String getTypeName(int index) {
+		return indexTypeMap.get(index - 1);
+	}
+
 	public Class<? extends Object> getType(String label) {
 		return getType(indexLabelMap.indexOf(label) + 1);
 	}
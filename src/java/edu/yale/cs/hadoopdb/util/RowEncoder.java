@@ -0,0 +1,227 @@
+/**
+ * Copyright 2009 HadoopDB Team (http://db.cs.yale.edu/hadoopdb/hadoopdb.html)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.yale.cs.hadoopdb.util;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.apache.hadoop.io.Text;
+
+/**
+ * Serializes result set rows into delimited Text values, producing the same
+ * bytes as {@link ParseSchema#serializeRow(ResultSet)} with less work per
+ * row: column labels are resolved to indices once per result set, values are
+ * read through the typed getter matching the class getObject() would return,
+ * and characters are encoded as UTF-8 straight into a reusable buffer which
+ * is copied into the Text.
+ */
+public class RowEncoder {
+
+	private static final int INT = 0;
+	private static final int LONG = 1;
+	private static final int DOUBLE = 2;
+	private static final int FLOAT = 3;
+	private static final int BOOLEAN = 4;
+	private static final int STRING = 5;
+	private static final int OBJECT = 6;
+
+	private static final byte DELIMITER = (byte) ParseSchema.DELIMITER
+			.charAt(0);
+	private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+	private static final byte[] MIN_LONG = String.valueOf(Long.MIN_VALUE)
+			.getBytes();
+
+	protected ParseSchema schema;
+	protected ResultSet bound;
+	protected int[] indices;
+	private int[] getters;
+
+	protected byte[] buffer = new byte[256];
+	protected int length;
+
+	public RowEncoder(ParseSchema schema) {
+		this.schema = schema;
+	}
+
+	/**
+	 * Resolves the schema's columns in a result set. Called automatically
+	 * when encode() is given a different result set than before.
+	 */
+	public void bind(ResultSet rs) throws SQLException {
+		int cols = schema.getColumnCount();
+		indices = new int[cols];
+		getters = new int[cols];
+		ResultSetMetaData metaData = rs.getMetaData();
+		for (int i = 0; i < cols; i++) {
+			indices[i] = rs.findColumn(schema.getLabel(i + 1));
+			getters[i] = getGetter(metaData.getColumnClassName(indices[i]));
+		}
+		bound = rs;
+	}
+
+	private static int getGetter(String className) {
+		if ("java.lang.Integer".equals(className)) {
+			return INT;
+		} else if ("java.lang.Long".equals(className)) {
+			return LONG;
+		} else if ("java.lang.Double".equals(className)) {
+			return DOUBLE;
+		} else if ("java.lang.Float".equals(className)) {
+			return FLOAT;
+		} else if ("java.lang.Boolean".equals(className)) {
+			return BOOLEAN;
+		} else if ("java.lang.String".equals(className)) {
+			return STRING;
+		}
+		return OBJECT;
+	}
+
+	/**
+	 * Serializes the current row of the result set into the Text
+	 */
+	public void encode(ResultSet rs, Text text) throws SQLException {
+		if (rs != bound) {
+			bind(rs);
+		}
+		length = 0;
+		for (int i = 0; i < indices.length; i++) {
+			if (i > 0) {
+				ensure(1);
+				buffer[length++] = DELIMITER;
+			}
+			int index = indices[i];
+			switch (getters[i]) {
+			case INT: {
+				int v = rs.getInt(index);
+				if (rs.wasNull()) {
+					append(NULL);
+				} else {
+					appendLong(v);
+				}
+				break;
+			}
+			case LONG: {
+				long v = rs.getLong(index);
+				if (rs.wasNull()) {
+					append(NULL);
+				} else {
+					appendLong(v);
+				}
+				break;
+			}
+			case DOUBLE: {
+				double v = rs.getDouble(index);
+				appendString(rs.wasNull() ? null : Double.toString(v));
+				break;
+			}
+			case FLOAT: {
+				float v = rs.getFloat(index);
+				appendString(rs.wasNull() ? null : Float.toString(v));
+				break;
+			}
+			case BOOLEAN: {
+				boolean v = rs.getBoolean(index);
+				appendString(rs.wasNull() ? null : (v ? "true" : "false"));
+				break;
+			}
+			case STRING:
+				appendString(rs.getString(index));
+				break;
+			default:
+				Object v = rs.getObject(index);
+				appendString(v == null ? null : v.toString());
+			}
+		}
+		text.set(buffer, 0, length);
+	}
+
+	protected void ensure(int n) {
+		if (length + n > buffer.length) {
+			byte[] b = new byte[Math.max(buffer.length * 2, length + n)];
+			System.arraycopy(buffer, 0, b, 0, length);
+			buffer = b;
+		}
+	}
+
+	protected void append(byte[] bytes) {
+		ensure(bytes.length);
+		System.arraycopy(bytes, 0, buffer, length, bytes.length);
+		length += bytes.length;
+	}
+
+	/**
+	 * Writes the decimal digits of a value
+	 */
+	private void appendLong(long v) {
+		if (v == Long.MIN_VALUE) {
+			append(MIN_LONG);
+			return;
+		}
+		ensure(20);
+		if (v < 0) {
+			buffer[length++] = '-';
+			v = -v;
+		}
+		int start = length;
+		do {
+			buffer[length++] = (byte) ('0' + (v % 10));
+			v /= 10;
+		} while (v > 0);
+		for (int i = start, j = length - 1; i < j; i++, j--) {
+			byte b = buffer[i];
+			buffer[i] = buffer[j];
+			buffer[j] = b;
+		}
+	}
+
+	/**
+	 * Encodes a string as UTF-8 ("null" for null). Unpaired surrogates are
+	 * replaced by '?' like String.getBytes("UTF-8") does.
+	 */
+	protected void appendString(String s) {
+		if (s == null) {
+			append(NULL);
+			return;
+		}
+		int n = s.length();
+		ensure(n * 3);
+		for (int i = 0; i < n; i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				buffer[length++] = (byte) c;
+			} else if (c < 0x800) {
+				buffer[length++] = (byte) (0xc0 | (c >> 6));
+				buffer[length++] = (byte) (0x80 | (c & 0x3f));
+			} else if (Character.isHighSurrogate(c) && i + 1 < n
+					&& Character.isLowSurrogate(s.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, s.charAt(++i));
+				buffer[length++] = (byte) (0xf0 | (cp >> 18));
+				buffer[length++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+				buffer[length++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+				buffer[length++] = (byte) (0x80 | (cp & 0x3f));
+			} else if (c >= Character.MIN_SURROGATE
+					&& c <= Character.MAX_SURROGATE) {
+				buffer[length++] = '?';
+			} else {
+				buffer[length++] = (byte) (0xe0 | (c >> 12));
+				buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				buffer[length++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+	}
+
+}